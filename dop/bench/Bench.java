@@ -0,0 +1,122 @@
+package bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Minimal benchmark harness used by the demo benchmarks.
+ * Runs warm-up and measured iterations of a body and reports throughput
+ * together with the bytes allocated per operation, read from the
+ * per-thread allocation counter of the HotSpot ThreadMXBean.
+ * <p>
+ * Command-line arguments act as name filters, so a single case can be run
+ * in a fresh JVM and keep a clean type profile:
+ * <pre>
+ * java -cp out ShapeDispatchBenchmark virtual/mono
+ * </pre>
+ * Iteration counts can be tuned with -Dbench.warmup, -Dbench.iterations
+ * and -Dbench.time (milliseconds per iteration).
+ */
+public final class Bench {
+    
+    private static final int WARMUP = Integer.getInteger("bench.warmup", 5);
+    private static final int ITERATIONS = Integer.getInteger("bench.iterations", 5);
+    private static final long ITERATION_NANOS = Long.getLong("bench.time", 500) * 1_000_000;
+    
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    
+    // Results are written here so the JIT cannot drop the measured work
+    private static volatile double sink;
+    
+    private final String[] filters;
+    private boolean headerPrinted;
+    
+    /**
+     * @param filters substrings of case names to run; empty runs every case
+     */
+    public Bench(String... filters) {
+        this.filters = filters;
+    }
+    
+    /**
+     * Result of one benchmark case.
+     */
+    public record Result(String name, double opsPerSecond, double bytesPerOp) {
+        
+        /**
+         * @return allocation rate in MB/s, the figure JMH reports as gc.alloc.rate
+         */
+        public double allocationRate() {
+            return opsPerSecond * bytesPerOp / (1024 * 1024);
+        }
+    }
+    
+    /**
+     * Runs a case if it matches the filters and prints one result line.
+     * @param name case name, by convention "strategy/input"
+     * @param opsPerCall how many logical operations one call of body performs
+     * @param body the measured work; its result is consumed
+     * @return the result, or null if the case was filtered out
+     */
+    public Result run(String name, long opsPerCall, DoubleSupplier body) {
+        if (!matches(name)) {
+            return null;
+        }
+        if (!headerPrinted) {
+            System.out.printf("%-40s %16s %12s %14s%n", "Benchmark", "ops/s", "B/op", "alloc MB/s");
+            headerPrinted = true;
+        }
+        for (int i = 0; i < WARMUP; i++) {
+            iteration(body);
+        }
+        long calls = 0;
+        long nanos = 0;
+        long bytes = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long[] sample = iteration(body);
+            calls += sample[0];
+            nanos += sample[1];
+            bytes += sample[2];
+        }
+        double ops = (double) calls * opsPerCall;
+        Result result = new Result(name, ops * 1e9 / nanos, bytes / ops);
+        System.out.printf("%-40s %16.1f %12.2f %14.1f%n",
+                name, result.opsPerSecond(), result.bytesPerOp(), result.allocationRate());
+        return result;
+    }
+    
+    private boolean matches(String name) {
+        if (filters.length == 0) {
+            return true;
+        }
+        for (String filter : filters) {
+            if (name.contains(filter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Calls body until the iteration time has elapsed.
+     * @return calls made, nanoseconds spent and bytes allocated
+     */
+    private static long[] iteration(DoubleSupplier body) {
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long deadline = start + ITERATION_NANOS;
+        long calls = 0;
+        double acc = 0;
+        long now;
+        do {
+            acc += body.getAsDouble();
+            calls++;
+            now = System.nanoTime();
+        } while (now < deadline);
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        sink = acc;
+        return new long[] {calls, now - start, allocated};
+    }
+}
@@ -0,0 +1,100 @@
+package linecommand;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Copies many files in one JVM, one virtual thread per file.
+ * A semaphore bounds how many files are open at once, so thousands of jobs
+ * keep the disk busy without exhausting file descriptors.
+ * A failing file is recorded in the summary and does not stop the others.
+ */
+final class BatchCopier {
+    
+    static final int DEFAULT_MAX_CONCURRENT_FILES = 16;
+    
+    private BatchCopier() {
+    }
+    
+    /**
+     * A job that failed and why.
+     */
+    record Failure(CopyJob job, Exception error) { }
+    
+    /**
+     * Aggregate outcome of a batch.
+     * @param lines lines copied, or -1 if some file was copied without counting them
+     */
+    record Summary(int files, long bytesRead, long bytesWritten, long lines, Duration elapsed,
+                   List<Failure> failures) {
+        
+        @Override
+        public String toString() {
+            double seconds = Math.max(elapsed.toNanos(), 1) / 1e9;
+            return String.format("Copied %d of %d files, %d bytes read, %d bytes written in %.3f s (%.1f MB/s)",
+                    files - failures.size(), files, bytesRead, bytesWritten, seconds,
+                    bytesRead / seconds / (1024 * 1024));
+        }
+    }
+    
+    /**
+     * @return the --jobs limit from the options, or the default
+     */
+    static int maxConcurrentFiles(List<Option> options) {
+        int limit = DEFAULT_MAX_CONCURRENT_FILES;
+        for (Option option : options) {
+            if (option instanceof Option.Jobs(int maxConcurrentFiles)) {
+                limit = maxConcurrentFiles;
+            }
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Jobs must be positive: " + limit);
+        }
+        return limit;
+    }
+    
+    static Summary copyAll(List<CopyJob> jobs, int maxConcurrentFiles) throws InterruptedIOException {
+        long start = System.nanoTime();
+        Semaphore permits = new Semaphore(maxConcurrentFiles);
+        List<Future<FileCopier.Result>> results = new ArrayList<>(jobs.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (CopyJob job : jobs) {
+                results.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return FileCopier.copy(job);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        }
+        
+        long read = 0;
+        long written = 0;
+        long lines = 0;
+        List<Failure> failures = new ArrayList<>();
+        for (int i = 0; i < jobs.size(); i++) {
+            try {
+                FileCopier.Result result = results.get(i).get();
+                read += result.bytesRead();
+                written += result.bytesWritten();
+                lines = lines < 0 || result.lines() < 0 ? -1 : lines + result.lines();
+            } catch (ExecutionException e) {
+                failures.add(new Failure(jobs.get(i), e.getCause() instanceof Exception cause ? cause : e));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while copying files");
+            }
+        }
+        return new Summary(jobs.size(), read, written, lines, Duration.ofNanos(System.nanoTime() - start), failures);
+    }
+}
@@ -0,0 +1,151 @@
+package linecommand;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Block layout of BGZF: gzip members of at most 64 KB whose header carries the
+ * compressed block size in a "BC" extra field, so blocks can be found without inflating.
+ * <pre>
+ * 1f 8b 08 04  mtime(4)  xfl  os  xlen=6(2)  'B' 'C'  slen=2(2)  bsize-1(2)
+ * deflate data   crc32(4)   isize(4)          all little-endian
+ * </pre>
+ */
+final class Bgzf {
+    
+    static final int HEADER_SIZE = 18;
+    static final int TRAILER_SIZE = 8;
+    static final int MAX_BLOCK_SIZE = 1 << 16;
+    
+    /**
+     * Uncompressed bytes per block; stored (level 0) deflate of this much still fits in a block.
+     */
+    static final int MAX_DATA_SIZE = MAX_BLOCK_SIZE - 256;
+    
+    /**
+     * The empty block bgzip writes as an end-of-file marker.
+     */
+    static final byte[] EOF_BLOCK = {
+        0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 6, 0, 'B', 'C', 2, 0,
+        0x1b, 0, 3, 0, 0, 0, 0, 0, 0, 0, 0, 0
+    };
+    
+    private static final ThreadLocal<Deflater> DEFLATER =
+            ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+    private static final ThreadLocal<Deflater> STORER =
+            ThreadLocal.withInitial(() -> new Deflater(Deflater.NO_COMPRESSION, true));
+    private static final ThreadLocal<Inflater> INFLATER =
+            ThreadLocal.withInitial(() -> new Inflater(true));
+    
+    private Bgzf() {
+    }
+    
+    /**
+     * @return true if header holds a BGZF block header at offset
+     */
+    static boolean isBlockHeader(byte[] header, int offset) {
+        return (header[offset] & 0xff) == 0x1f && (header[offset + 1] & 0xff) == 0x8b
+                && header[offset + 2] == 8 && (header[offset + 3] & 4) != 0
+                && littleEndian16(header, offset + 10) == 6
+                && header[offset + 12] == 'B' && header[offset + 13] == 'C'
+                && littleEndian16(header, offset + 14) == 2;
+    }
+    
+    /**
+     * @return the total size of the block whose header is at offset
+     */
+    static int blockSize(byte[] header, int offset) {
+        return littleEndian16(header, offset + 16) + 1;
+    }
+    
+    /**
+     * Compresses up to MAX_DATA_SIZE bytes into one complete block.
+     */
+    static byte[] compress(byte[] data, int length) {
+        byte[] block = new byte[MAX_BLOCK_SIZE];
+        int size = deflate(DEFLATER.get(), data, length, block);
+        if (size < 0) {
+            // Incompressible data: stored deflate always fits
+            size = deflate(STORER.get(), data, length, block);
+        }
+        System.arraycopy(EOF_BLOCK, 0, block, 0, HEADER_SIZE);
+        putLittleEndian16(block, 16, size - 1);
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        putLittleEndian32(block, size - TRAILER_SIZE, (int) crc.getValue());
+        putLittleEndian32(block, size - 4, length);
+        return Arrays.copyOf(block, size);
+    }
+    
+    /**
+     * @return the block size, or -1 if the deflated data does not fit in a block
+     */
+    private static int deflate(Deflater deflater, byte[] data, int length, byte[] block) {
+        deflater.reset();
+        deflater.setInput(data, 0, length);
+        deflater.finish();
+        int end = HEADER_SIZE;
+        int limit = MAX_BLOCK_SIZE - TRAILER_SIZE;
+        while (!deflater.finished() && end < limit) {
+            end += deflater.deflate(block, end, limit - end);
+        }
+        return deflater.finished() ? end + TRAILER_SIZE : -1;
+    }
+    
+    /**
+     * Inflates one complete block and checks its CRC and size.
+     */
+    static byte[] decompress(byte[] block, int size) throws IOException {
+        int dataSize = littleEndian32(block, size - 4);
+        if (dataSize < 0 || dataSize > MAX_BLOCK_SIZE) {
+            throw new IOException("Corrupt BGZF block: size " + dataSize);
+        }
+        byte[] data = new byte[dataSize];
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(block, HEADER_SIZE, size - HEADER_SIZE - TRAILER_SIZE);
+        try {
+            int inflated = 0;
+            while (inflated < dataSize && !inflater.finished()) {
+                int n = inflater.inflate(data, inflated, dataSize - inflated);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += n;
+            }
+            if (inflated != dataSize) {
+                throw new IOException("Corrupt BGZF block: truncated data");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt BGZF block", e);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        if ((int) crc.getValue() != littleEndian32(block, size - TRAILER_SIZE)) {
+            throw new IOException("Corrupt BGZF block: CRC mismatch");
+        }
+        return data;
+    }
+    
+    private static int littleEndian16(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) | (bytes[offset + 1] & 0xff) << 8;
+    }
+    
+    private static int littleEndian32(byte[] bytes, int offset) {
+        return littleEndian16(bytes, offset) | littleEndian16(bytes, offset + 2) << 16;
+    }
+    
+    private static void putLittleEndian16(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+    }
+    
+    private static void putLittleEndian32(byte[] bytes, int offset, int value) {
+        putLittleEndian16(bytes, offset, value);
+        putLittleEndian16(bytes, offset + 2, value >>> 16);
+    }
+}
@@ -0,0 +1,124 @@
+package linecommand;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Decompresses BGZF input on several threads. Block boundaries are read from the
+ * headers, so blocks are inflated ahead of the reader and handed out in order.
+ */
+final class BgzfInputStream extends InputStream {
+    
+    private static final byte[] EMPTY = new byte[0];
+    
+    private final InputStream in;
+    private final ExecutorService executor;
+    private final int maxPending;
+    private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+    
+    private byte[] current = EMPTY;
+    private int position;
+    private boolean endOfInput;
+    
+    /**
+     * @param threads number of blocks decompressed at the same time
+     */
+    BgzfInputStream(InputStream in, int threads) {
+        this.in = in;
+        this.executor = Executors.newFixedThreadPool(threads, Thread.ofPlatform().daemon().factory());
+        this.maxPending = 2 * threads;
+    }
+    
+    /**
+     * Peeks at the stream, which must support mark/reset.
+     * @return true if it starts with a BGZF block header
+     */
+    static boolean startsWithBgzfBlock(InputStream in) throws IOException {
+        byte[] header = new byte[Bgzf.HEADER_SIZE];
+        in.mark(header.length);
+        int length = in.readNBytes(header, 0, header.length);
+        in.reset();
+        return length == header.length && Bgzf.isBlockHeader(header, 0);
+    }
+    
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return current[position++] & 0xff;
+    }
+    
+    @Override
+    public int read(byte[] bytes, int offset, int count) throws IOException {
+        if (count == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(count, current.length - position);
+        System.arraycopy(current, position, bytes, offset, n);
+        position += n;
+        return n;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        executor.shutdownNow();
+        in.close();
+    }
+    
+    /**
+     * Makes sure unread data is available, skipping empty blocks.
+     * @return false at the end of the input
+     */
+    private boolean fill() throws IOException {
+        while (position == current.length) {
+            while (!endOfInput && pending.size() < maxPending) {
+                submitBlock();
+            }
+            if (pending.isEmpty()) {
+                return false;
+            }
+            try {
+                current = pending.removeFirst().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while decompressing");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                throw new IOException("Decompression failed", e.getCause());
+            }
+            position = 0;
+        }
+        return true;
+    }
+    
+    private void submitBlock() throws IOException {
+        byte[] header = new byte[Bgzf.HEADER_SIZE];
+        int length = in.readNBytes(header, 0, header.length);
+        if (length == 0) {
+            endOfInput = true;
+            return;
+        }
+        if (length < header.length || !Bgzf.isBlockHeader(header, 0)) {
+            throw new IOException("Not a BGZF block");
+        }
+        int size = Bgzf.blockSize(header, 0);
+        byte[] block = new byte[size];
+        System.arraycopy(header, 0, block, 0, header.length);
+        if (in.readNBytes(block, header.length, size - header.length) != size - header.length) {
+            throw new IOException("Truncated BGZF block");
+        }
+        pending.add(executor.submit(() -> Bgzf.decompress(block, size)));
+    }
+}
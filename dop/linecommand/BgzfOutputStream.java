@@ -0,0 +1,109 @@
+package linecommand;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * gzip output compressed pigz-style: the stream is cut into BGZF blocks that are
+ * deflated concurrently and written back in order. A bounded number of blocks is in
+ * flight, so memory use does not depend on the input size.
+ */
+final class BgzfOutputStream extends OutputStream {
+    
+    private final OutputStream out;
+    private final ExecutorService executor;
+    private final int maxPending;
+    private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+    
+    private byte[] block = new byte[Bgzf.MAX_DATA_SIZE];
+    private int length;
+    private boolean closed;
+    
+    /**
+     * @param threads number of blocks compressed at the same time
+     */
+    BgzfOutputStream(OutputStream out, int threads) {
+        this.out = out;
+        this.executor = Executors.newFixedThreadPool(threads, Thread.ofPlatform().daemon().factory());
+        this.maxPending = 2 * threads;
+    }
+    
+    @Override
+    public void write(int b) throws IOException {
+        block[length++] = (byte) b;
+        if (length == block.length) {
+            submitBlock();
+        }
+    }
+    
+    @Override
+    public void write(byte[] bytes, int offset, int count) throws IOException {
+        while (count > 0) {
+            int n = Math.min(count, block.length - length);
+            System.arraycopy(bytes, offset, block, length, n);
+            length += n;
+            offset += n;
+            count -= n;
+            if (length == block.length) {
+                submitBlock();
+            }
+        }
+    }
+    
+    /**
+     * Compresses and writes everything so far, ending the current block early.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (length > 0) {
+            submitBlock();
+        }
+        while (!pending.isEmpty()) {
+            writeOldest();
+        }
+        out.flush();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+            out.write(Bgzf.EOF_BLOCK);
+        } finally {
+            executor.shutdownNow();
+            out.close();
+        }
+    }
+    
+    private void submitBlock() throws IOException {
+        byte[] data = block;
+        int size = length;
+        pending.add(executor.submit(() -> Bgzf.compress(data, size)));
+        block = new byte[Bgzf.MAX_DATA_SIZE];
+        length = 0;
+        while (pending.size() > maxPending) {
+            writeOldest();
+        }
+    }
+    
+    private void writeOldest() throws IOException {
+        try {
+            out.write(pending.removeFirst().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing");
+        } catch (ExecutionException e) {
+            throw new IOException("Compression failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package linecommand;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one chunk of a file: a mapped slice numbered by FileCopier
+ * or a chunk numbered by a ParallelCopier worker. Comparing the chunk durations with
+ * their bytes shows whether time goes into scanning or waiting on the disk.
+ */
+@Name("linecommand.ChunkCopy")
+@Label("Chunk Copy")
+@Category("linecommand")
+@Description("A chunk of an input file numbered and written")
+@StackTrace(false)
+final class ChunkCopyEvent extends Event {
+    
+    @Label("Offset")
+    @Description("Input offset of the chunk")
+    long offset;
+    
+    @Label("Bytes Read")
+    @DataAmount
+    long bytesRead;
+    
+    @Label("Bytes Written")
+    @DataAmount
+    long bytesWritten;
+    
+    @Label("Lines")
+    long lines;
+    
+    @Label("Allocated")
+    @Description("Bytes allocated by the thread that copied the chunk, or -1 if it cannot be measured there")
+    @DataAmount
+    long allocated;
+    
+    private transient long allocatedBefore;
+    
+    /**
+     * @return a started event
+     */
+    static ChunkCopyEvent start() {
+        ChunkCopyEvent event = new ChunkCopyEvent();
+        if (event.isEnabled()) {
+            event.allocatedBefore = FileCopyEvent.allocatedBytes();
+        }
+        event.begin();
+        return event;
+    }
+    
+    /**
+     * Ends the event and records it if it passes the recording's settings.
+     */
+    void finish(long chunkOffset, long chunkBytesRead, long chunkBytesWritten, long chunkLines) {
+        end();
+        if (shouldCommit()) {
+            offset = chunkOffset;
+            bytesRead = chunkBytesRead;
+            bytesWritten = chunkBytesWritten;
+            lines = chunkLines;
+            allocated = FileCopyEvent.allocatedSince(allocatedBefore);
+            commit();
+        }
+    }
+}
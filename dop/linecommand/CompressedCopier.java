@@ -0,0 +1,79 @@
+package linecommand;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
+/**
+ * Copy for compressed inputs or outputs. Data is streamed through the codecs in
+ * Compression and a LineNumberer, which keeps line numbers and MaxLines exact across
+ * block boundaries since it only ever sees the uncompressed byte stream.
+ * A start line is reached by scanning, as compressed input cannot be indexed.
+ */
+final class CompressedCopier {
+    
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    private CompressedCopier() {
+    }
+    
+    /**
+     * @return the result, counting uncompressed bytes
+     */
+    static FileCopier.Result copy(CopyJob job, Compression input, Compression output) throws IOException {
+        job.checkDistinctFiles();
+        int threads = job.threads() > 1 ? job.threads() : Runtime.getRuntime().availableProcessors();
+        try (InputStream in = input.openInput(job.input(), threads);
+             OutputStream out = output.openOutput(job.output(), threads)) {
+            LineNumberer numberer = new LineNumberer(job.maxLines(), job.printLineNumbers(), job.startLine());
+            ByteBuffer source = ByteBuffer.allocate(BUFFER_SIZE);
+            ByteBuffer target = ByteBuffer.allocate(BUFFER_SIZE);
+            long skip = job.startLine() - 1;
+            long read = 0;
+            long written = 0;
+            boolean done = false;
+            while (!done) {
+                int count = in.read(source.array(), 0, source.capacity());
+                if (count < 0) {
+                    break;
+                }
+                source.clear().limit(count);
+                if (skip > 0) {
+                    skip = skipLines(source, skip);
+                }
+                int first = source.position();
+                while (true) {
+                    done = numberer.transform(source, target);
+                    if (done || !target.hasRemaining() || !source.hasRemaining()) {
+                        out.write(target.array(), 0, target.position());
+                        written += target.position();
+                        target.clear();
+                    }
+                    if (done || !source.hasRemaining()) {
+                        break;
+                    }
+                }
+                read += source.position() - first;
+            }
+            return new FileCopier.Result(read, written, numberer.lines());
+        }
+    }
+    
+    /**
+     * Moves the buffer's position past up to lines newlines.
+     * @return the number of lines still to skip
+     */
+    private static long skipLines(ByteBuffer source, long lines) {
+        MemorySegment segment = MemorySegment.ofArray(source.array());
+        long newline = NewlineScanner.nth(segment, source.position(), source.limit(), lines);
+        if (newline >= 0) {
+            source.position((int) newline + 1);
+            return 0;
+        }
+        long skipped = NewlineScanner.count(segment, source.position(), source.limit());
+        source.position(source.limit());
+        return lines - skipped;
+    }
+}
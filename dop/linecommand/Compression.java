@@ -0,0 +1,101 @@
+package linecommand;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compression formats recognized for InputFile and OutputFile.
+ * Inputs are recognized by their magic bytes, falling back to the extension;
+ * outputs by their extension.
+ * <p>
+ * gzip output is written as BGZF (blocked gzip, as produced by bgzip), which any gzip
+ * reader accepts as a multi-member file. Its blocks are compressed on several cores,
+ * and BGZF input is decompressed on several cores too; other gzip input goes through
+ * GZIPInputStream. The JDK has no zstd codec, so .zst files are recognized but rejected.
+ */
+enum Compression {
+    NONE, GZIP, ZSTD;
+    
+    private static final int GZIP_MAGIC = 0x1f8b;
+    private static final int ZSTD_MAGIC = 0x28b52ffd;
+    
+    /**
+     * Recognizes an existing input file by its first bytes, or by its name if it is too short.
+     */
+    static Compression ofInput(Path file) throws IOException {
+        if (Files.isRegularFile(file)) {
+            byte[] head = new byte[4];
+            int length;
+            try (InputStream in = Files.newInputStream(file)) {
+                length = in.readNBytes(head, 0, head.length);
+            }
+            if (length >= 2 && ((head[0] & 0xff) << 8 | (head[1] & 0xff)) == GZIP_MAGIC) {
+                return GZIP;
+            }
+            if (length == 4 && ((head[0] & 0xff) << 24 | (head[1] & 0xff) << 16
+                    | (head[2] & 0xff) << 8 | (head[3] & 0xff)) == ZSTD_MAGIC) {
+                return ZSTD;
+            }
+            if (length >= 2) {
+                return NONE;
+            }
+        }
+        return ofName(file);
+    }
+    
+    /**
+     * Recognizes an output file by its name.
+     */
+    static Compression ofOutput(Path file) {
+        return ofName(file);
+    }
+    
+    private static Compression ofName(Path file) {
+        String name = file.getFileName().toString();
+        if (name.endsWith(".gz") || name.endsWith(".bgz")) {
+            return GZIP;
+        }
+        if (name.endsWith(".zst")) {
+            return ZSTD;
+        }
+        return NONE;
+    }
+    
+    /**
+     * Opens a decompressing stream over the file.
+     * @param threads how many blocks may be decompressed at once
+     */
+    InputStream openInput(Path file, int threads) throws IOException {
+        return switch (this) {
+            case NONE -> Files.newInputStream(file);
+            case GZIP -> {
+                BufferedInputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+                yield BgzfInputStream.startsWithBgzfBlock(in)
+                        ? new BgzfInputStream(in, threads)
+                        : new GZIPInputStream(in, 1 << 16);
+            }
+            case ZSTD -> throw unsupported(file);
+        };
+    }
+    
+    /**
+     * Opens a compressing stream that creates or truncates the file.
+     * @param threads how many blocks may be compressed at once
+     */
+    OutputStream openOutput(Path file, int threads) throws IOException {
+        return switch (this) {
+            case NONE -> Files.newOutputStream(file);
+            case GZIP -> new BgzfOutputStream(Files.newOutputStream(file), threads);
+            case ZSTD -> throw unsupported(file);
+        };
+    }
+    
+    private static IOException unsupported(Path file) {
+        return new IOException("zstd is not supported (no codec in the JDK): " + file);
+    }
+}
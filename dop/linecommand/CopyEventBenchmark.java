@@ -0,0 +1,65 @@
+package linecommand;
+
+import bench.Bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import jdk.jfr.Recording;
+
+/**
+ * Measures what the Flight Recorder events cost. The chunk cases count the lines of a
+ * 4 KB buffer, bare and wrapped in a ChunkCopyEvent the way the copiers use it; with no
+ * recording the wrapped case should match the bare one and allocate nothing. The copy
+ * cases copy a small file, one operation per file, without and with a recording.
+ */
+public class CopyEventBenchmark {
+    
+    private static final int CHUNK_SIZE = 4096;
+    
+    public static void main(String[] args) throws IOException {
+        Path input = Files.createTempFile("copy-event-in", ".txt");
+        Path output = Files.createTempFile("copy-event-out", ".txt");
+        try (Arena arena = Arena.ofConfined()) {
+            LineCopyBenchmark.writeSample(input, 64 << 10);
+            MemorySegment chunk = arena.allocate(CHUNK_SIZE)
+                    .copyFrom(MemorySegment.ofArray(Files.readAllBytes(input)).asSlice(0, CHUNK_SIZE));
+            CopyJob job = new CopyJob(input, output, CopyJob.UNLIMITED, true, 1, false, 1, false);
+            Bench bench = new Bench(args);
+            
+            bench.run("chunk/bare", CHUNK_SIZE, () -> NewlineScanner.count(chunk, 0, CHUNK_SIZE));
+            bench.run("chunk/event-disabled", CHUNK_SIZE, () -> countRecorded(chunk));
+            bench.run("copy/event-disabled", 1, () -> copy(job));
+            
+            try (Recording recording = new Recording()) {
+                recording.enable(ChunkCopyEvent.class);
+                recording.enable(FileCopyEvent.class);
+                recording.start();
+                bench.run("chunk/event-recording", CHUNK_SIZE, () -> countRecorded(chunk));
+                bench.run("copy/event-recording", 1, () -> copy(job));
+            }
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+    
+    private static long countRecorded(MemorySegment chunk) {
+        ChunkCopyEvent event = ChunkCopyEvent.start();
+        long lines = NewlineScanner.count(chunk, 0, CHUNK_SIZE);
+        event.finish(0, CHUNK_SIZE, 0, lines);
+        return lines;
+    }
+    
+    private static double copy(CopyJob job) {
+        try {
+            return FileCopier.copy(job).bytesWritten();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
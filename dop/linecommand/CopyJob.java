@@ -0,0 +1,129 @@
+package linecommand;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Everything needed to run one copy, collected from a list of parsed options.
+ * Inputs and outputs may be repeated and are paired in order; the remaining
+ * options apply to every pair, and a later one overrides an earlier one.
+ */
+record CopyJob(Path input, Path output, long maxLines, boolean printLineNumbers, int threads, boolean pipelined,
+               long startLine, boolean indexed) {
+    
+    /**
+     * maxLines value meaning "copy every line".
+     */
+    static final long UNLIMITED = Long.MAX_VALUE;
+    
+    CopyJob {
+        Objects.requireNonNull(input, "input");
+        Objects.requireNonNull(output, "output");
+        if (maxLines < 0) {
+            throw new IllegalArgumentException("Max lines must not be negative: " + maxLines);
+        }
+        if (startLine < 1) {
+            throw new IllegalArgumentException("Start line must be positive: " + startLine);
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be positive: " + threads);
+        }
+    }
+    
+    /**
+     * Rejects a job whose output is its input: opening the output truncates it before anything is read.
+     * @throws IllegalArgumentException if both paths name the same existing file
+     */
+    void checkDistinctFiles() throws IOException {
+        if (Files.exists(output) && Files.isSameFile(input, output)) {
+            throw new IllegalArgumentException("Input and output are the same file: " + input);
+        }
+    }
+    
+    /**
+     * Builds one job per input/output pair from parsed options.
+     * @throws IllegalArgumentException if inputs or outputs are missing or unpaired
+     */
+    static List<CopyJob> from(List<Option> options) {
+        List<Path> inputs = new ArrayList<>();
+        List<Path> outputs = new ArrayList<>();
+        long maxLines = UNLIMITED;
+        boolean printLineNumbers = false;
+        int threads = 1;
+        boolean pipelined = false;
+        long startLine = 1;
+        boolean indexed = false;
+        for (Option option : options) {
+            switch (option) {
+                case Option.InputFile(Path path) -> inputs.add(path);
+                case Option.OutputFile(Path path) -> outputs.add(path);
+                case Option.MaxLines(int lines) -> maxLines = lines;
+                case Option.PrintLineNumbers() -> printLineNumbers = true;
+                case Option.Parallel(int count) -> threads = count;
+                case Option.Jobs(int count) -> { }
+                case Option.Pipeline() -> pipelined = true;
+                case Option.Follow() -> { }
+                case Option.StartLine(long line) -> startLine = line;
+                case Option.Index() -> indexed = true;
+                case Option.Stats() -> { }
+            }
+        }
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("Missing --input");
+        }
+        if (outputs.size() != inputs.size()) {
+            throw new IllegalArgumentException("Expected one --output per --input, got "
+                    + outputs.size() + " for " + inputs.size());
+        }
+        List<CopyJob> jobs = new ArrayList<>(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            jobs.add(new CopyJob(inputs.get(i), outputs.get(i), maxLines, printLineNumbers, threads, pipelined,
+                    startLine, indexed));
+        }
+        return jobs;
+    }
+    
+    /**
+     * Turns a directory input into one job per regular file in it, written
+     * under the same name to the output directory, which is created if needed.
+     * @return this job alone if the input is not a directory
+     */
+    List<CopyJob> expand() throws IOException {
+        if (!Files.isDirectory(input)) {
+            return List.of(this);
+        }
+        Files.createDirectories(output);
+        try (Stream<Path> files = Files.list(input)) {
+            return files.filter(Files::isRegularFile)
+                    .sorted()
+                    .map(file -> withFiles(file, output.resolve(file.getFileName())))
+                    .toList();
+        }
+    }
+    
+    /**
+     * @return the same job for another pair of files
+     */
+    CopyJob withFiles(Path newInput, Path newOutput) {
+        return new CopyJob(newInput, newOutput, maxLines, printLineNumbers, threads, pipelined, startLine, indexed);
+    }
+    
+    /**
+     * @return true if only a prefix of the input is copied
+     */
+    boolean limited() {
+        return maxLines != UNLIMITED;
+    }
+    
+    /**
+     * @return the line after the last one copied, or Long.MAX_VALUE if copying runs to the end
+     */
+    long endLine() {
+        return limited() ? startLine + maxLines : Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,120 @@
+package linecommand;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Process-wide figures for --stats: throughput, CPU and GC time, and peak resident memory,
+ * plus the bytes allocated by the thread that ran the copy.
+ * CPU time close to the wall time means the copy is CPU-bound; much less means it waits
+ * on I/O. Peak RSS is read from /proc and is unavailable on other systems. Allocation is n/a
+ * when the copies ran on virtual threads, whose allocation counter the JDK does not keep.
+ */
+final class CopyStats {
+    
+    private static final Path PROC_STATUS = Path.of("/proc/self/status");
+    
+    private final long startNanos;
+    private final long startCpuNanos;
+    private final long startGcMillis;
+    private final long startGcCount;
+    private final long startAllocated;
+    
+    private CopyStats() {
+        startNanos = System.nanoTime();
+        startCpuNanos = cpuNanos();
+        startGcMillis = gcMillis();
+        startGcCount = gcCount();
+        startAllocated = FileCopyEvent.allocatedBytes();
+    }
+    
+    /**
+     * @return true if the options ask for statistics
+     */
+    static boolean requested(List<Option> options) {
+        return options.stream().anyMatch(option -> option instanceof Option.Stats);
+    }
+    
+    /**
+     * Starts measuring from now.
+     */
+    static CopyStats start() {
+        return new CopyStats();
+    }
+    
+    /**
+     * @return bytes allocated by the current thread since start, or FileCopyEvent.UNAVAILABLE
+     */
+    long allocated() {
+        return FileCopyEvent.allocatedSince(startAllocated);
+    }
+    
+    /**
+     * @param lines lines copied, or -1 if they were not counted
+     * @param allocated bytes allocated by the copying thread, or FileCopyEvent.UNAVAILABLE
+     * @return the figures since start, one per line
+     */
+    String report(long bytes, long lines, long allocated) {
+        double seconds = Math.max(System.nanoTime() - startNanos, 1) / 1e9;
+        double cpuSeconds = (cpuNanos() - startCpuNanos) / 1e9;
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Elapsed:    %.3f s%n", seconds));
+        report.append(String.format("Throughput: %.1f MB/s (%d bytes)%n", bytes / seconds / (1024 * 1024), bytes));
+        if (lines >= 0) {
+            report.append(String.format("Lines:      %.0f lines/s (%d lines)%n", lines / seconds, lines));
+        } else {
+            report.append(String.format("Lines:      not counted by the bulk copy%n"));
+        }
+        report.append(String.format("CPU:        %.3f s (%.0f%% of elapsed)%n", cpuSeconds, 100 * cpuSeconds / seconds));
+        report.append(String.format("GC:         %d ms in %d collections%n",
+                gcMillis() - startGcMillis, gcCount() - startGcCount));
+        report.append(allocated < 0 ? String.format("Allocated:  n/a%n")
+                : String.format("Allocated:  %.1f MB%n", allocated / (1024.0 * 1024)));
+        long peakRss = peakRssKilobytes();
+        report.append(peakRss < 0 ? "Peak RSS:   unavailable" : String.format("Peak RSS:   %.1f MB", peakRss / 1024.0));
+        return report.toString();
+    }
+    
+    private static long cpuNanos() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os.getProcessCpuTime();
+        }
+        return 0;
+    }
+    
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(gc.getCollectionTime(), 0);
+        }
+        return total;
+    }
+    
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(gc.getCollectionCount(), 0);
+        }
+        return total;
+    }
+    
+    /**
+     * @return the VmHWM line of /proc/self/status in kB, or -1 if it cannot be read
+     */
+    private static long peakRssKilobytes() {
+        try {
+            for (String line : Files.readAllLines(PROC_STATUS)) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.substring("VmHWM:".length()).replace("kB", "").trim());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Not Linux, or an unexpected format
+        }
+        return -1;
+    }
+}
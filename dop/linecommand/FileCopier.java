@@ -0,0 +1,213 @@
+package linecommand;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Executes a CopyJob: copies the input file to the output file, honoring MaxLines and PrintLineNumbers.
+ * <p>
+ * Without line numbers the bytes are moved with FileChannel.transferTo, which lets the
+ * kernel copy them without passing through the Java heap; with MaxLines the input is
+ * first scanned for the end of the last wanted line.
+ * With line numbers the input is memory-mapped and streamed through a LineNumberer into
+ * one reusable direct buffer, so nothing is allocated per line.
+ * With more than one thread, numbering is done chunk by chunk by ParallelCopier.
+ * Pipelined jobs overlap reading, transforming and writing in PipelinedCopier,
+ * and compressed files are streamed through their codecs by CompressedCopier.
+ * <p>
+ * With a start line, copying begins at that line and lines keep their numbers in the
+ * input. The start is found from the nearest sample of a LineIndex when the input has
+ * an up-to-date one; with --index the lines scanned along the way extend it.
+ */
+final class FileCopier {
+    
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 20;
+    
+    /**
+     * Mapped input is handed to the LineNumberer in slices of this size,
+     * since a ByteBuffer view cannot exceed 2 GB.
+     */
+    private static final long SLICE_SIZE = 1 << 30;
+    
+    private FileCopier() {
+    }
+    
+    /**
+     * Outcome of a copy.
+     * @param bytesRead input bytes consumed
+     * @param bytesWritten output bytes produced
+     * @param lines lines copied, or -1 if the bulk path did not need to count them
+     */
+    record Result(long bytesRead, long bytesWritten, long lines) { }
+    
+    /**
+     * Copies one file, recorded as a FileCopyEvent when Flight Recorder is on.
+     */
+    static Result copy(CopyJob job) throws IOException {
+        FileCopyEvent event = FileCopyEvent.start();
+        Result result = copyFile(job);
+        event.finish(job, result);
+        return result;
+    }
+    
+    private static Result copyFile(CopyJob job) throws IOException {
+        job.checkDistinctFiles();
+        Compression input = Compression.ofInput(job.input());
+        Compression output = Compression.ofOutput(job.output());
+        if (input != Compression.NONE || output != Compression.NONE) {
+            return CompressedCopier.copy(job, input, output);
+        }
+        if (job.startLine() == 1 && !job.indexed()) {
+            return copyFrom(job, 0, null);
+        }
+        try (Arena arena = Arena.ofConfined()) {
+            long inputSize = Files.size(job.input());
+            long inputModified = Files.getLastModifiedTime(job.input()).toMillis();
+            LineIndex index = LineIndex.open(arena, job.input());
+            LineIndex.Builder builder = job.indexed() ? new LineIndex.Builder(index) : null;
+            long from;
+            try (FileChannel in = FileChannel.open(job.input(), StandardOpenOption.READ)) {
+                from = startOffset(job, in, index, builder);
+            }
+            Result result = copyFrom(job, from, builder);
+            if (builder != null && (index == null || builder.size() > index.size())) {
+                builder.write(job.input(), inputSize, inputModified);
+            }
+            return result;
+        }
+    }
+    
+    /**
+     * Copies from the given input offset, where job.startLine() begins.
+     * @param builder collects index samples from the lines scanned, or null
+     */
+    private static Result copyFrom(CopyJob job, long from, LineIndex.Builder builder) throws IOException {
+        if (job.pipelined()) {
+            return PipelinedCopier.copy(job, from);
+        }
+        try (FileChannel in = FileChannel.open(job.input(), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(job.output(), StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            if (!job.printLineNumbers()) {
+                return copyBulk(job, in, out, from, builder);
+            }
+            if (job.threads() > 1) {
+                return ParallelCopier.copyNumbered(job, in, out, from);
+            }
+            LineNumberer numberer = new LineNumberer(job.maxLines(), true, job.startLine());
+            if (builder != null) {
+                numberer.index(builder, from);
+            }
+            return transform(in, from, in.size(), numberer, out);
+        }
+    }
+    
+    /**
+     * Finds where job.startLine() begins, scanning from the nearest indexed line.
+     * @return the offset, or the input size if the input has fewer lines
+     */
+    private static long startOffset(CopyJob job, FileChannel in, LineIndex index, LineIndex.Builder builder)
+            throws IOException {
+        if (job.startLine() == 1) {
+            return 0;
+        }
+        long line = 1;
+        long from = 0;
+        if (index != null) {
+            line = index.floorLine(job.startLine());
+            from = index.offset(line);
+        }
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment input = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size(), arena);
+            long start = LineIndex.seek(input, from, line, job.startLine(), builder);
+            return start < 0 ? input.byteSize() : start;
+        }
+    }
+    
+    private static Result copyBulk(CopyJob job, FileChannel in, FileChannel out, long from,
+            LineIndex.Builder builder) throws IOException {
+        long end = in.size();
+        long lines = -1;
+        if (job.limited() || builder != null) {
+            try (Arena arena = Arena.ofConfined()) {
+                MemorySegment input = in.map(FileChannel.MapMode.READ_ONLY, 0, end, arena);
+                long stop = LineIndex.seek(input, from, job.startLine(), job.endLine(), builder);
+                if (stop >= 0) {
+                    end = stop;
+                    lines = job.maxLines();
+                } else if (job.limited()) {
+                    // Fewer lines than wanted: the rest of the input is copied
+                    lines = countLines(input, from, end);
+                }
+            }
+        }
+        long position = from;
+        while (position < end) {
+            position += in.transferTo(position, end - position, out);
+        }
+        return new Result(end - from, end - from, lines);
+    }
+    
+    /**
+     * Streams bytes from..to of the input through the numberer, writing at the
+     * output channel's current position.
+     */
+    static Result transform(FileChannel in, long from, long to, LineNumberer numberer, FileChannel out)
+            throws IOException {
+        long size = to - from;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(OUTPUT_BUFFER_SIZE);
+        long read = 0;
+        long written = 0;
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment input = in.map(FileChannel.MapMode.READ_ONLY, from, size, arena);
+            for (long offset = 0; offset < size && !numberer.done(); offset += SLICE_SIZE) {
+                ChunkCopyEvent event = ChunkCopyEvent.start();
+                long sliceWritten = written;
+                long sliceLines = numberer.lines();
+                ByteBuffer slice = input.asSlice(offset, Math.min(SLICE_SIZE, size - offset)).asByteBuffer();
+                while (!numberer.transform(slice, buffer)) {
+                    if (!buffer.hasRemaining()) {
+                        written += drain(buffer, out);
+                    } else if (!slice.hasRemaining()) {
+                        break;
+                    }
+                }
+                read += slice.position();
+                event.finish(from + offset, slice.position(), written - sliceWritten, numberer.lines() - sliceLines);
+            }
+        }
+        written += drain(buffer, out);
+        return new Result(read, written, numberer.lines());
+    }
+    
+    /**
+     * @return the number of lines in from..to, counting a last line without '\n'
+     */
+    private static long countLines(MemorySegment input, long from, long to) {
+        long lines = NewlineScanner.count(input, from, to);
+        if (to > from && input.get(ValueLayout.JAVA_BYTE, to - 1) != '\n') {
+            lines++;
+        }
+        return lines;
+    }
+    
+    /**
+     * Writes out the buffer's contents and clears it.
+     * @return the number of bytes written
+     */
+    static int drain(ByteBuffer buffer, FileChannel out) throws IOException {
+        buffer.flip();
+        int bytes = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+        return bytes;
+    }
+}
@@ -0,0 +1,102 @@
+package linecommand;
+
+import java.lang.management.ManagementFactory;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one copied file, emitted by FileCopier.copy.
+ * Like all JFR events it costs a branch on a constant when not recorded: start()
+ * only reads the allocation counter if the event is enabled, and the unused event
+ * object is removed by escape analysis.
+ */
+@Name("linecommand.FileCopy")
+@Label("File Copy")
+@Category("linecommand")
+@Description("One input file copied to its output")
+@StackTrace(false)
+final class FileCopyEvent extends Event {
+    
+    /**
+     * Allocation figure of a thread whose counter cannot be read: the JDK returns -1 for virtual threads.
+     */
+    static final long UNAVAILABLE = -1;
+    
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    
+    @Label("Input")
+    String input;
+    
+    @Label("Output")
+    String output;
+    
+    @Label("Bytes Read")
+    @DataAmount
+    long bytesRead;
+    
+    @Label("Bytes Written")
+    @DataAmount
+    long bytesWritten;
+    
+    @Label("Lines")
+    @Description("Lines copied, or -1 if the bulk path did not count them")
+    long lines;
+    
+    @Label("Allocated")
+    @Description("Bytes allocated by the copying thread, or -1 if it cannot be measured there (virtual threads)")
+    @DataAmount
+    long allocated;
+    
+    private transient long allocatedBefore;
+    
+    /**
+     * @return a started event
+     */
+    static FileCopyEvent start() {
+        FileCopyEvent event = new FileCopyEvent();
+        if (event.isEnabled()) {
+            event.allocatedBefore = allocatedBytes();
+        }
+        event.begin();
+        return event;
+    }
+    
+    /**
+     * Ends the event and records it if it passes the recording's settings.
+     */
+    void finish(CopyJob job, FileCopier.Result result) {
+        end();
+        if (shouldCommit()) {
+            input = job.input().toString();
+            output = job.output().toString();
+            bytesRead = result.bytesRead();
+            bytesWritten = result.bytesWritten();
+            lines = result.lines();
+            allocated = allocatedSince(allocatedBefore);
+            commit();
+        }
+    }
+    
+    /**
+     * @return the bytes allocated so far by the current thread, or UNAVAILABLE on a virtual thread
+     */
+    static long allocatedBytes() {
+        return Math.max(THREADS.getCurrentThreadAllocatedBytes(), UNAVAILABLE);
+    }
+    
+    /**
+     * @param before allocatedBytes() at the start
+     * @return the bytes allocated by the current thread since then, or UNAVAILABLE if either reading is
+     */
+    static long allocatedSince(long before) {
+        long now = allocatedBytes();
+        return before < 0 || now < 0 ? UNAVAILABLE : now - before;
+    }
+}
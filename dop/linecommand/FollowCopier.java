@@ -0,0 +1,217 @@
+package linecommand;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows a growing input, like {@code tail -f}: lines appended to it are copied to
+ * the output as they arrive, and line numbers carry on from the last copied line.
+ * <p>
+ * Only complete lines are copied; a trailing line without '\n' waits for its end.
+ * After each step a checkpoint next to the output records how far the input has been
+ * read, so a restart resumes with the appended bytes instead of the whole file.
+ * The output is cut back to the checkpointed length on restart, so a crash between
+ * writing and checkpointing does not duplicate lines. A truncated or replaced input
+ * starts the copy over.
+ * <p>
+ * Appends are noticed through a WatchService on the input's directory; the size is
+ * also polled every second, which covers file systems without change notification.
+ */
+final class FollowCopier {
+    
+    private static final long POLL_INTERVAL_MILLIS = 1000;
+    
+    private FollowCopier() {
+    }
+    
+    /**
+     * Progress saved between runs.
+     * @param inputOffset input bytes consumed, always just after a '\n'
+     * @param lines lines copied so far
+     * @param outputBytes length of the output holding those lines
+     * @param fileKey identity of the input file, or "-" if the platform has none
+     */
+    record Checkpoint(long inputOffset, long lines, long outputBytes, String fileKey) {
+        
+        static final Checkpoint START = new Checkpoint(0, 0, 0, "-");
+        
+        /**
+         * @return the saved checkpoint, or null if there is none or it cannot be read
+         */
+        static Checkpoint load(Path file) throws IOException {
+            if (!Files.exists(file)) {
+                return null;
+            }
+            String[] fields = Files.readString(file).trim().split(" ", 4);
+            try {
+                return new Checkpoint(Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                        Long.parseLong(fields[2]), fields[3]);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                return null;
+            }
+        }
+        
+        /**
+         * Replaces the saved checkpoint atomically, so a crash leaves the old or the new one.
+         */
+        void save(Path file) throws IOException {
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(temporary, inputOffset + " " + lines + " " + outputBytes + " " + fileKey + "\n");
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+    
+    /**
+     * @return true if the options ask to follow the input
+     */
+    static boolean follows(List<Option> options) {
+        return options.stream().anyMatch(option -> option instanceof Option.Follow);
+    }
+    
+    /**
+     * @return where the checkpoint for the output is kept
+     */
+    static Path checkpointFile(Path output) {
+        return output.resolveSibling(output.getFileName() + ".checkpoint");
+    }
+    
+    /**
+     * Copies the input and then every line appended to it. Returns only once MaxLines
+     * lines have been copied; without MaxLines it runs until the thread is interrupted.
+     * @return the totals since the output was started, including earlier runs
+     */
+    static FileCopier.Result follow(CopyJob job) throws IOException {
+        if (Compression.ofInput(job.input()) != Compression.NONE
+                || Compression.ofOutput(job.output()) != Compression.NONE) {
+            throw new IllegalArgumentException("--follow does not support compressed files");
+        }
+        if (job.startLine() != 1) {
+            throw new IllegalArgumentException("--follow cannot start after the first line");
+        }
+        job.checkDistinctFiles();
+        Path checkpointFile = checkpointFile(job.output());
+        Checkpoint checkpoint = Objects.requireNonNullElse(Checkpoint.load(checkpointFile), Checkpoint.START);
+        
+        try (WatchService watcher = watch(job.input());
+             FileChannel out = FileChannel.open(job.output(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (out.size() < checkpoint.outputBytes()) {
+                // The output lost lines the checkpoint claims; copy everything again
+                checkpoint = Checkpoint.START;
+            }
+            out.truncate(checkpoint.outputBytes());
+            out.position(checkpoint.outputBytes());
+            while (checkpoint.lines() < job.maxLines()) {
+                Checkpoint next = catchUp(job, checkpoint, out);
+                if (next == null) {
+                    await(watcher);
+                    continue;
+                }
+                if (next == Checkpoint.START) {
+                    out.truncate(0);
+                    out.position(0);
+                }
+                checkpoint = next;
+                checkpoint.save(checkpointFile);
+            }
+            return new FileCopier.Result(checkpoint.inputOffset(), checkpoint.outputBytes(), checkpoint.lines());
+        }
+    }
+    
+    /**
+     * Copies the complete lines appended since the checkpoint.
+     * @return the new checkpoint, START if the input was truncated or replaced,
+     *         or null if there is nothing new
+     */
+    private static Checkpoint catchUp(CopyJob job, Checkpoint checkpoint, FileChannel out) throws IOException {
+        try (FileChannel in = FileChannel.open(job.input(), StandardOpenOption.READ)) {
+            Object key = Files.readAttributes(job.input(), BasicFileAttributes.class).fileKey();
+            String fileKey = key == null ? "-" : key.toString().replace(' ', '_');
+            long size = in.size();
+            if (size < checkpoint.inputOffset()
+                    || (checkpoint.inputOffset() > 0 && !fileKey.equals(checkpoint.fileKey()))) {
+                return Checkpoint.START;
+            }
+            long end = endOfLastLine(in, checkpoint.inputOffset(), size);
+            if (end == checkpoint.inputOffset()) {
+                return checkpoint.fileKey().equals(fileKey) ? null : new Checkpoint(
+                        checkpoint.inputOffset(), checkpoint.lines(), checkpoint.outputBytes(), fileKey);
+            }
+            LineNumberer numberer = new LineNumberer(job.maxLines() - checkpoint.lines(),
+                    job.printLineNumbers(), checkpoint.lines() + 1);
+            FileCopier.Result result = FileCopier.transform(in, checkpoint.inputOffset(), end, numberer, out);
+            return new Checkpoint(checkpoint.inputOffset() + result.bytesRead(), checkpoint.lines() + result.lines(),
+                    checkpoint.outputBytes() + result.bytesWritten(), fileKey);
+        } catch (NoSuchFileException e) {
+            // Between rotation and re-creation; wait for the new file
+            return null;
+        }
+    }
+    
+    /**
+     * @return the offset just after the last '\n' in from..size, or from if there is none
+     */
+    private static long endOfLastLine(FileChannel in, long from, long size) throws IOException {
+        if (size == from) {
+            return from;
+        }
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment input = in.map(FileChannel.MapMode.READ_ONLY, from, size - from, arena);
+            for (long i = input.byteSize() - 1; i >= 0; i--) {
+                if (input.get(ValueLayout.JAVA_BYTE, i) == '\n') {
+                    return from + i + 1;
+                }
+            }
+        }
+        return from;
+    }
+    
+    /**
+     * @return a watcher for the input's directory, or null if the file system has none
+     */
+    private static WatchService watch(Path input) throws IOException {
+        Path directory = input.toAbsolutePath().getParent();
+        try {
+            WatchService watcher = directory.getFileSystem().newWatchService();
+            directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            return watcher;
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Blocks until the input's directory changes or the poll interval passes.
+     */
+    private static void await(WatchService watcher) throws InterruptedIOException {
+        try {
+            if (watcher == null) {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+                return;
+            }
+            WatchKey key = watcher.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            if (key != null) {
+                key.pollEvents();
+                key.reset();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while following the input");
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package linecommand;
+
+import bench.Bench;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Compares FileCopier with a naive BufferedReader/BufferedWriter copy on a generated text file.
+ * One operation is one byte of input, so ops/s is the copy bandwidth in bytes per second.
+ * The file size in megabytes is set with -Dbench.fileSize (default 256).
+ * The range cases extract 1000 lines from the middle of the file, one extraction per
+ * operation, by scanning from byte 0 and then with a LineIndex.
+ */
+public class LineCopyBenchmark {
+    
+    public static void main(String[] args) throws IOException {
+        long fileSize = Long.getLong("bench.fileSize", 256) << 20;
+        Path input = Files.createTempFile("linecopy-in", ".txt");
+        Path output = Files.createTempFile("linecopy-out", ".txt");
+        try {
+            writeSample(input, fileSize);
+            Bench bench = new Bench(args);
+            
+            CopyJob bulk = new CopyJob(input, output, CopyJob.UNLIMITED, false, 1, false, 1, false);
+            CopyJob numbered = new CopyJob(input, output, CopyJob.UNLIMITED, true, 1, false, 1, false);
+            CopyJob parallel = new CopyJob(input, output, CopyJob.UNLIMITED, true,
+                    Runtime.getRuntime().availableProcessors(), false, 1, false);
+            CopyJob pipelined = new CopyJob(input, output, CopyJob.UNLIMITED, true, 1, true, 1, false);
+            
+            bench.run("copier/bulk", fileSize, () -> copy(bulk));
+            bench.run("copier/numbered", fileSize, () -> copy(numbered));
+            bench.run("copier/numbered-parallel", fileSize, () -> copy(parallel));
+            bench.run("copier/numbered-pipelined", fileSize, () -> copy(pipelined));
+            bench.run("naive/bulk", fileSize, () -> naiveCopy(bulk));
+            bench.run("naive/numbered", fileSize, () -> naiveCopy(numbered));
+            
+            // Lines average 80 bytes, so this starts about halfway through
+            long middle = fileSize / 160;
+            CopyJob range = new CopyJob(input, output, 1000, true, 1, false, middle, false);
+            bench.run("range/scan", 1, () -> copy(range));
+            FileCopier.copy(new CopyJob(input, output, CopyJob.UNLIMITED, false, 1, false, 1, true));
+            bench.run("range/indexed", 1, () -> copy(range));
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+            Files.deleteIfExists(LineIndex.indexFile(input));
+        }
+    }
+    
+    private static double copy(CopyJob job) {
+        try {
+            return FileCopier.copy(job).bytesWritten();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * The straightforward implementation: one String per line, String.format per number.
+     */
+    private static double naiveCopy(CopyJob job) {
+        try (BufferedReader reader = Files.newBufferedReader(job.input(), StandardCharsets.ISO_8859_1);
+             BufferedWriter writer = Files.newBufferedWriter(job.output(), StandardCharsets.ISO_8859_1)) {
+            long lines = 0;
+            String line;
+            while (lines < job.maxLines() && (line = reader.readLine()) != null) {
+                lines++;
+                if (job.printLineNumbers()) {
+                    writer.write(String.format("%6d\t", lines));
+                }
+                writer.write(line);
+                writer.write('\n');
+            }
+            return lines;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Writes ASCII lines of 0 to 160 characters until the file reaches size bytes.
+     */
+    static void writeSample(Path file, long size) throws IOException {
+        Random random = new Random(42);
+        byte[] block = new byte[1 << 16];
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (long written = 0; written < size; written += block.length) {
+                int lineEnd = random.nextInt(160);
+                for (int i = 0; i < block.length; i++) {
+                    if (i == lineEnd) {
+                        block[i] = '\n';
+                        lineEnd = i + 1 + random.nextInt(160);
+                    } else {
+                        block[i] = (byte) ('a' + random.nextInt(26));
+                    }
+                }
+                out.write(block, 0, (int) Math.min(block.length, size - written));
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package linecommand;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Sidecar index of an input file: the byte offset of every INTERVAL-th line, so that a
+ * line range can be reached by a short scan from the nearest sample instead of from byte 0.
+ * <p>
+ * The index is a little-endian long[] kept next to the input as {@code <input>.lidx}
+ * and memory-mapped when read:
+ * <pre>
+ * magic, input size, input mtime (ms), interval, entry count, offset of line 1, of line 1 + interval, ...
+ * </pre>
+ * It is valid only while the input's size and modification time match the header.
+ * Indexes are built by a Builder fed from the newline scans a copy does anyway.
+ */
+final class LineIndex {
+
+    /**
+     * Lines between samples; a lookup scans at most this many lines.
+     */
+    static final long INTERVAL = 1 << 10;
+
+    private static final long MAGIC = 0x4C49445801L;
+    private static final int HEADER_LONGS = 5;
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final MemorySegment entries;
+    private final long count;
+
+    private LineIndex(MemorySegment entries, long count) {
+        this.entries = entries;
+        this.count = count;
+    }
+
+    /**
+     * @return where the index of the input is kept
+     */
+    static Path indexFile(Path input) {
+        return input.resolveSibling(input.getFileName() + ".lidx");
+    }
+
+    /**
+     * Maps the input's index into the arena.
+     * @return the index, or null if there is none or it is out of date
+     */
+    static LineIndex open(Arena arena, Path input) throws IOException {
+        Path file = indexFile(input);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_LONGS * Long.BYTES || size % Long.BYTES != 0) {
+                return null;
+            }
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, size, arena);
+            long count = segment.get(LONG, 4 * Long.BYTES);
+            if (segment.get(LONG, 0) != MAGIC
+                    || segment.get(LONG, Long.BYTES) != Files.size(input)
+                    || segment.get(LONG, 2 * Long.BYTES) != Files.getLastModifiedTime(input).toMillis()
+                    || segment.get(LONG, 3 * Long.BYTES) != INTERVAL
+                    || count < 1 || count != size / Long.BYTES - HEADER_LONGS) {
+                return null;
+            }
+            return new LineIndex(segment.asSlice(HEADER_LONGS * Long.BYTES), count);
+        }
+    }
+
+    /**
+     * @return the number of samples
+     */
+    long size() {
+        return count;
+    }
+
+    /**
+     * @return the last sampled line at or before the given line
+     */
+    long floorLine(long line) {
+        long entry = Math.min((line - 1) / INTERVAL, count - 1);
+        return entry * INTERVAL + 1;
+    }
+
+    /**
+     * @param sampledLine a line returned by floorLine
+     * @return the offset at which that line starts
+     */
+    long offset(long sampledLine) {
+        return entries.getAtIndex(LONG, (sampledLine - 1) / INTERVAL);
+    }
+
+    /**
+     * Finds where a line starts by scanning forward from a known line start,
+     * reporting the samples it passes to the builder.
+     * @param from offset at which line starts
+     * @param builder receives the samples passed on the way, or null
+     * @return the offset at which target starts, or -1 if the input ends first
+     */
+    static long seek(MemorySegment input, long from, long line, long target, Builder builder) {
+        long size = input.byteSize();
+        while (line < target) {
+            long stop = target;
+            if (builder != null && builder.nextLine() > line && builder.nextLine() < target) {
+                stop = builder.nextLine();
+            }
+            long newline = NewlineScanner.nth(input, from, size, stop - line);
+            if (newline < 0) {
+                return -1;
+            }
+            from = newline + 1;
+            line = stop;
+            if (builder != null) {
+                builder.lineAt(line, from);
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Collects samples as lines are seen in order, then writes them out as an index.
+     */
+    static final class Builder {
+
+        private long[] offsets;
+        private int count;
+
+        /**
+         * @param existing samples to start from, or null to start at line 1
+         */
+        Builder(LineIndex existing) {
+            if (existing == null) {
+                offsets = new long[16];
+                count = 1;
+            } else {
+                offsets = existing.entries.toArray(LONG);
+                count = offsets.length;
+            }
+        }
+
+        /**
+         * @return the next line that will be sampled
+         */
+        long nextLine() {
+            return count * INTERVAL + 1;
+        }
+
+        /**
+         * Notes that line starts at offset; only the next sampled line is kept.
+         */
+        void lineAt(long line, long offset) {
+            if (line == nextLine()) {
+                if (count == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                }
+                offsets[count++] = offset;
+            }
+        }
+
+        /**
+         * @return the number of samples
+         */
+        long size() {
+            return count;
+        }
+
+        /**
+         * Replaces the input's index with these samples, stamped with the input's size and
+         * modification time as they were when its lines were scanned.
+         */
+        void write(Path input, long inputSize, long inputModified) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate((HEADER_LONGS + count) * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putLong(MAGIC).putLong(inputSize).putLong(inputModified).putLong(INTERVAL).putLong(count);
+            buffer.asLongBuffer().put(offsets, 0, count);
+            Path file = indexFile(input);
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temporary, buffer.array());
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
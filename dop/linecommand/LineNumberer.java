@@ -0,0 +1,163 @@
+package linecommand;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
+/**
+ * Streaming line transform: copies bytes from input buffers to output buffers,
+ * stopping after maxLines lines and optionally prefixing each line with its number.
+ * <p>
+ * Lines end with '\n'; a last line without one still counts. Numbers are formatted
+ * like {@code cat -n}: right-aligned to six characters and followed by a tab.
+ * State is kept between calls, so lines and prefixes may be split across buffers
+ * in any way. Nothing is allocated per line.
+ */
+final class LineNumberer {
+    
+    private static final int NUMBER_WIDTH = 6;
+    
+    private final long maxLines;
+    private final boolean printLineNumbers;
+    private final long firstLineNumber;
+    
+    private final byte[] prefix = new byte[20 + 1];
+    private int prefixLength;
+    private int prefixPosition;
+    
+    private long lines;
+    private boolean atLineStart = true;
+    private boolean done;
+    
+    private LineIndex.Builder index;
+    private long offset;
+    
+    /**
+     * @param maxLines number of lines to copy, CopyJob.UNLIMITED for all
+     * @param printLineNumbers whether to prefix lines with their number
+     * @param firstLineNumber number printed before the first line
+     */
+    LineNumberer(long maxLines, boolean printLineNumbers, long firstLineNumber) {
+        this.maxLines = maxLines;
+        this.printLineNumbers = printLineNumbers;
+        this.firstLineNumber = firstLineNumber;
+    }
+    
+    /**
+     * Reports the start of every line to the builder as it is seen, so that
+     * copying a range also indexes it.
+     * @param firstOffset input offset of the first line, whose number is firstLineNumber
+     */
+    void index(LineIndex.Builder builder, long firstOffset) {
+        this.index = builder;
+        this.offset = firstOffset;
+    }
+    
+    /**
+     * Moves as much as possible from in to out.
+     * Returns when in is drained, out is full, or the line limit is reached.
+     * @return true once the line limit is reached and no further input is wanted
+     */
+    boolean transform(ByteBuffer in, ByteBuffer out) {
+        // One view per call for the newline scanner, offsets relative to the current position
+        MemorySegment segment = MemorySegment.ofBuffer(in);
+        int base = in.position();
+        while (true) {
+            if (prefixPosition < prefixLength) {
+                int n = Math.min(prefixLength - prefixPosition, out.remaining());
+                out.put(prefix, prefixPosition, n);
+                prefixPosition += n;
+                if (prefixPosition < prefixLength) {
+                    return false;
+                }
+            }
+            if (atLineStart && lines == maxLines) {
+                done = true;
+                return true;
+            }
+            if (!in.hasRemaining() || !out.hasRemaining()) {
+                return false;
+            }
+            if (atLineStart) {
+                atLineStart = false;
+                lines++;
+                if (index != null) {
+                    index.lineAt(firstLineNumber + lines - 1, offset);
+                }
+                if (printLineNumbers) {
+                    prefixLength = formatNumber(firstLineNumber + lines - 1);
+                    prefixPosition = 0;
+                    continue;
+                }
+            }
+            
+            int start = in.position();
+            int limit = start + Math.min(in.remaining(), out.remaining());
+            long found = NewlineScanner.indexOf(segment, start - base, limit - base);
+            int end = found < 0 ? limit : (int) found + base + 1;
+            out.put(out.position(), in, start, end - start);
+            out.position(out.position() + end - start);
+            in.position(end);
+            offset += end - start;
+            atLineStart = found >= 0;
+        }
+    }
+    
+    /**
+     * @return the number of lines started so far
+     */
+    long lines() {
+        return lines;
+    }
+    
+    /**
+     * @return true once the line limit has been reached
+     */
+    boolean done() {
+        return done;
+    }
+    
+    /**
+     * @return the total length of the prefixes of count lines numbered from firstNumber on
+     */
+    static long prefixBytes(long firstNumber, long count) {
+        long total = 0;
+        long number = firstNumber;
+        long end = firstNumber + count;
+        while (number < end) {
+            // Numbers below the next power of ten share the same prefix length
+            int digits = 1;
+            long nextPower = 10;
+            while (digits < 19 && nextPower <= number) {
+                digits++;
+                nextPower = digits < 19 ? nextPower * 10 : Long.MAX_VALUE;
+            }
+            long bandEnd = Math.min(end, nextPower);
+            total += (bandEnd - number) * (Math.max(NUMBER_WIDTH, digits) + 1);
+            number = bandEnd;
+        }
+        return total;
+    }
+    
+    /**
+     * Writes the "%6d\t" form of a non-negative number into the prefix array without creating a String.
+     * @return the prefix length
+     */
+    private int formatNumber(long number) {
+        int digits = 1;
+        for (long rest = number / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        int length = Math.max(NUMBER_WIDTH, digits);
+        int pos = length;
+        prefix[pos--] = '\t';
+        long rest = number;
+        do {
+            prefix[pos--] = (byte) ('0' + rest % 10);
+            rest /= 10;
+        } while (rest != 0);
+        while (pos >= 0) {
+            prefix[pos--] = ' ';
+        }
+        return length + 1;
+    }
+}
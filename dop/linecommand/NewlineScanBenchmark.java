@@ -0,0 +1,58 @@
+package linecommand;
+
+import bench.Bench;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compares the NewlineScanner kernels with a byte-by-byte loop and String.lines()
+ * for counting lines and for finding the N-th newline (the MaxLines cut).
+ * One operation is one byte scanned, so ops/s is the scan bandwidth.
+ * The vector cases only run with --add-modules jdk.incubator.vector.
+ * The data size in megabytes is set with -Dbench.dataSize (default 64).
+ */
+public class NewlineScanBenchmark {
+    
+    public static void main(String[] args) throws IOException {
+        long size = Long.getLong("bench.dataSize", 64) << 20;
+        Path file = Files.createTempFile("newline-scan", ".txt");
+        try (Arena arena = Arena.ofConfined()) {
+            LineCopyBenchmark.writeSample(file, size);
+            byte[] bytes = Files.readAllBytes(file);
+            MemorySegment data = arena.allocate(size, 64).copyFrom(MemorySegment.ofArray(bytes));
+            String text = new String(bytes, StandardCharsets.ISO_8859_1);
+            long middle = NewlineScanner.count(data, 0, size) / 2;
+            
+            Bench bench = new Bench(args);
+            NewlineScanner.Kernel swar = new NewlineScanner.Swar();
+            
+            if (NewlineScanner.isVectorized()) {
+                NewlineScanner.Kernel vector = new VectorNewlineKernel();
+                bench.run("count/vector", size, () -> vector.count(data, 0, size));
+                bench.run("nth/vector", size / 2, () -> vector.nth(data, 0, size, middle));
+            }
+            bench.run("count/swar", size, () -> swar.count(data, 0, size));
+            bench.run("nth/swar", size / 2, () -> swar.nth(data, 0, size, middle));
+            bench.run("count/bytewise", size, () -> countBytewise(data, size));
+            bench.run("count/string-lines", size, () -> text.lines().count());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    private static long countBytewise(MemorySegment data, long size) {
+        long count = 0;
+        for (long i = 0; i < size; i++) {
+            if (data.get(ValueLayout.JAVA_BYTE, i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+}
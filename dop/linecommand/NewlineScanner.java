@@ -0,0 +1,150 @@
+package linecommand;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * Finds and counts '\n' bytes in a MemorySegment: the hot loop behind MaxLines and line numbering.
+ * Lines ending in "\r\n" are found by their '\n' as well.
+ * <p>
+ * When jdk.incubator.vector is resolved (--add-modules jdk.incubator.vector) the scan compares
+ * a whole vector of 32 or 64 bytes per step; otherwise it tests eight bytes at a time within
+ * a long (SWAR). Mapped or heap ByteBuffers can be scanned through MemorySegment.ofBuffer.
+ */
+final class NewlineScanner {
+    
+    private static final Kernel KERNEL = selectKernel();
+    
+    private NewlineScanner() {
+    }
+    
+    /**
+     * @return the offset of the first newline in [from, to), or -1 if there is none
+     */
+    static long indexOf(MemorySegment segment, long from, long to) {
+        return KERNEL.indexOf(segment, from, to);
+    }
+    
+    /**
+     * @return the number of newlines in [from, to)
+     */
+    static long count(MemorySegment segment, long from, long to) {
+        return KERNEL.count(segment, from, to);
+    }
+    
+    /**
+     * @param n which newline to find, starting at 1
+     * @return the offset of the n-th newline in [from, to), or -1 if there are fewer
+     */
+    static long nth(MemorySegment segment, long from, long to, long n) {
+        return KERNEL.nth(segment, from, to, n);
+    }
+    
+    /**
+     * @return true if scans run on the incubator Vector API
+     */
+    static boolean isVectorized() {
+        return !(KERNEL instanceof Swar);
+    }
+    
+    private static Kernel selectKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return new VectorNewlineKernel();
+            } catch (LinkageError e) {
+                // Module resolved but unusable on this VM, use SWAR
+            }
+        }
+        return new Swar();
+    }
+    
+    interface Kernel {
+        long indexOf(MemorySegment segment, long from, long to);
+        
+        long count(MemorySegment segment, long from, long to);
+        
+        long nth(MemorySegment segment, long from, long to, long n);
+    }
+    
+    /**
+     * SIMD within a register: each long read is tested for newline bytes at once.
+     * Bytes are read little-endian so byte i of the word is bits 8i..8i+7.
+     */
+    static final class Swar implements Kernel {
+        
+        private static final ValueLayout.OfLong WORD = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+        private static final long NEWLINES = 0x0a0a0a0a0a0a0a0aL;
+        private static final long LOW_BITS = 0x7f7f7f7f7f7f7f7fL;
+        
+        /**
+         * @return a word with the high bit set in exactly those bytes of word equal to '\n'
+         */
+        static long newlineBits(long word) {
+            long x = word ^ NEWLINES;
+            // A byte's high bit survives only if all its bits are zero, with no carries between bytes
+            return ~(((x & LOW_BITS) + LOW_BITS) | x | LOW_BITS);
+        }
+        
+        @Override
+        public long indexOf(MemorySegment segment, long from, long to) {
+            long i = from;
+            for (; i + Long.BYTES <= to; i += Long.BYTES) {
+                long bits = newlineBits(segment.get(WORD, i));
+                if (bits != 0) {
+                    return i + (Long.numberOfTrailingZeros(bits) >>> 3);
+                }
+            }
+            for (; i < to; i++) {
+                if (segment.get(ValueLayout.JAVA_BYTE, i) == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        
+        @Override
+        public long count(MemorySegment segment, long from, long to) {
+            long count = 0;
+            long i = from;
+            for (; i + Long.BYTES <= to; i += Long.BYTES) {
+                count += Long.bitCount(newlineBits(segment.get(WORD, i)));
+            }
+            for (; i < to; i++) {
+                if (segment.get(ValueLayout.JAVA_BYTE, i) == '\n') {
+                    count++;
+                }
+            }
+            return count;
+        }
+        
+        @Override
+        public long nth(MemorySegment segment, long from, long to, long n) {
+            long i = from;
+            for (; i + Long.BYTES <= to; i += Long.BYTES) {
+                long bits = newlineBits(segment.get(WORD, i));
+                int found = Long.bitCount(bits);
+                if (found >= n) {
+                    return i + (nthSetBit(bits, n) >>> 3);
+                }
+                n -= found;
+            }
+            for (; i < to; i++) {
+                if (segment.get(ValueLayout.JAVA_BYTE, i) == '\n' && --n == 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        
+        /**
+         * @return the bit index of the n-th set bit of bits, counting from the lowest
+         */
+        static int nthSetBit(long bits, long n) {
+            for (long k = n; k > 1; k--) {
+                bits &= bits - 1;
+            }
+            return Long.numberOfTrailingZeros(bits);
+        }
+    }
+}
@@ -4,7 +4,7 @@ import java.nio.file.Path;
 
 /**
  * Sealed interface representing command-line options.
- * Only the four record types are permitted to implement this interface.
+ * Only the record types declared here are permitted to implement this interface.
  */
 sealed interface Option {
 
@@ -16,5 +16,19 @@ sealed interface Option {
 
     record PrintLineNumbers() implements Option { }
 
+    record Parallel(int threads) implements Option { }
+
+    record Jobs(int maxConcurrentFiles) implements Option { }
+
+    record Pipeline() implements Option { }
+
+    record Follow() implements Option { }
+
+    record StartLine(long startLine) implements Option { }
+
+    record Index() implements Option { }
+
+    record Stats() implements Option { }
+
 }
 
@@ -1,5 +1,6 @@
 package linecommand;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -12,6 +13,11 @@ import java.util.List;
 public class OptionParser {
     
     public static void main(String[] args) {
+        // With real arguments, run the copy they describe instead of the demo
+        if (args.length > 0) {
+            System.exit(run(args));
+        }
+        
         System.out.println("=== Sealed Option Interface with Records Demo ===\n");
         
         // Example 1: Parse command-line style arguments
@@ -50,10 +56,68 @@ public class OptionParser {
         }
     }
     
+    /**
+     * Parses the arguments and copies each input file to its output file.
+     * Several files, or a directory, are copied concurrently by BatchCopier.
+     * With --follow the input is watched and appended lines are copied until the process is stopped.
+     * With --stats throughput, CPU, GC and memory figures are printed at the end.
+     * @return the process exit code
+     */
+    static int run(String[] args) {
+        try {
+            List<Option> options = parseOptions(args);
+            CopyStats stats = CopyStats.requested(options) ? CopyStats.start() : null;
+            List<CopyJob> jobs = new ArrayList<>();
+            for (CopyJob job : CopyJob.from(options)) {
+                jobs.addAll(job.expand());
+            }
+            
+            if (FollowCopier.follows(options)) {
+                if (jobs.size() != 1) {
+                    throw new IllegalArgumentException("--follow takes a single input file");
+                }
+                FileCopier.Result result = FollowCopier.follow(jobs.get(0));
+                System.out.println("Stopped following after " + result.lines() + " lines");
+                printStats(stats, result.bytesRead(), result.lines(), true);
+                return 0;
+            }
+            
+            if (jobs.size() == 1) {
+                CopyJob job = jobs.get(0);
+                FileCopier.Result result = FileCopier.copy(job);
+                System.out.println("Copied " + result.bytesRead() + " bytes from " + job.input()
+                        + " to " + job.output() + " (" + result.bytesWritten() + " bytes written)");
+                printStats(stats, result.bytesRead(), result.lines(), true);
+                return 0;
+            }
+            
+            BatchCopier.Summary summary = BatchCopier.copyAll(jobs, BatchCopier.maxConcurrentFiles(options));
+            for (BatchCopier.Failure failure : summary.failures()) {
+                System.err.println("Failed " + failure.job().input() + ": " + failure.error());
+            }
+            System.out.println(summary);
+            // The files were copied on virtual threads, so this thread's counter says nothing about them
+            printStats(stats, summary.bytesRead(), summary.lines(), false);
+            return summary.failures().isEmpty() ? 0 : 1;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        }
+    }
+    
+    /**
+     * @param copiedHere whether the copy ran on this thread, so its allocation counter covers it
+     */
+    private static void printStats(CopyStats stats, long bytes, long lines, boolean copiedHere) {
+        if (stats != null) {
+            System.out.println(stats.report(bytes, lines, copiedHere ? stats.allocated() : FileCopyEvent.UNAVAILABLE));
+        }
+    }
+    
     /**
      * Parses command-line arguments into Option instances.
      */
-    private static List<Option> parseOptions(String[] args) {
+    static List<Option> parseOptions(String[] args) {
         List<Option> options = new ArrayList<>();
         
         for (int i = 0; i < args.length; i++) {
@@ -76,6 +140,33 @@ public class OptionParser {
                 case "--print-line-numbers", "-n" -> {
                     options.add(new Option.PrintLineNumbers());
                 }
+                case "--parallel", "-p" -> {
+                    if (i + 1 < args.length) {
+                        options.add(new Option.Parallel(Integer.parseInt(args[++i])));
+                    }
+                }
+                case "--jobs", "-j" -> {
+                    if (i + 1 < args.length) {
+                        options.add(new Option.Jobs(Integer.parseInt(args[++i])));
+                    }
+                }
+                case "--pipeline" -> {
+                    options.add(new Option.Pipeline());
+                }
+                case "--follow", "-f" -> {
+                    options.add(new Option.Follow());
+                }
+                case "--start-line", "-s" -> {
+                    if (i + 1 < args.length) {
+                        options.add(new Option.StartLine(Long.parseLong(args[++i])));
+                    }
+                }
+                case "--index" -> {
+                    options.add(new Option.Index());
+                }
+                case "--stats" -> {
+                    options.add(new Option.Stats());
+                }
             }
         }
         
@@ -94,6 +185,20 @@ public class OptionParser {
             System.out.println("  Max lines: " + maxLines);
         } else if (option instanceof Option.PrintLineNumbers()) {
             System.out.println("  Print line numbers: enabled");
+        } else if (option instanceof Option.Parallel(int threads)) {
+            System.out.println("  Parallel threads: " + threads);
+        } else if (option instanceof Option.Jobs(int maxConcurrentFiles)) {
+            System.out.println("  Concurrent files: " + maxConcurrentFiles);
+        } else if (option instanceof Option.Pipeline()) {
+            System.out.println("  Pipelined copy: enabled");
+        } else if (option instanceof Option.Follow()) {
+            System.out.println("  Follow input: enabled");
+        } else if (option instanceof Option.StartLine(long startLine)) {
+            System.out.println("  Start line: " + startLine);
+        } else if (option instanceof Option.Index()) {
+            System.out.println("  Line index: enabled");
+        } else if (option instanceof Option.Stats()) {
+            System.out.println("  Statistics: enabled");
         }
     }
     
@@ -111,6 +216,20 @@ public class OptionParser {
                 "MaxLines -> " + maxLines;
             case Option.PrintLineNumbers() -> 
                 "PrintLineNumbers -> enabled";
+            case Option.Parallel(int threads) -> 
+                "Parallel -> " + threads + " threads";
+            case Option.Jobs(int maxConcurrentFiles) -> 
+                "Jobs -> " + maxConcurrentFiles + " files at a time";
+            case Option.Pipeline() -> 
+                "Pipeline -> enabled";
+            case Option.Follow() -> 
+                "Follow -> enabled";
+            case Option.StartLine(long startLine) -> 
+                "StartLine -> " + startLine;
+            case Option.Index() -> 
+                "Index -> enabled";
+            case Option.Stats() -> 
+                "Stats -> enabled";
             // No default needed - compiler knows all cases are covered!
         };
     }
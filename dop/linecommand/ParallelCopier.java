@@ -0,0 +1,159 @@
+package linecommand;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Line numbering split across threads, for inputs too large to number sequentially.
+ * <ol>
+ * <li>The mapped input is cut into chunks that each end just after a newline.</li>
+ * <li>Newlines are counted in all chunks concurrently.</li>
+ * <li>A prefix sum gives every chunk its first line number and, since the length of every
+ *     prefix is known, its exact offset in the output. MaxLines cuts the list of chunks.</li>
+ * <li>Each chunk is numbered by its own LineNumberer and written at its offset.</li>
+ * </ol>
+ * The output is byte-identical to the sequential path in FileCopier.
+ */
+final class ParallelCopier {
+    
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int BUFFER_SIZE = 1 << 20;
+    
+    private ParallelCopier() {
+    }
+    
+    /**
+     * One slice of the input and where its numbered lines go.
+     */
+    private record Chunk(long start, long end, long lines, long firstLine, long outputOffset) { }
+    
+    /**
+     * @param from offset at which job.startLine() begins
+     */
+    static FileCopier.Result copyNumbered(CopyJob job, FileChannel in, FileChannel out, long from)
+            throws IOException {
+        long size = in.size();
+        try (Arena arena = Arena.ofShared();
+             ExecutorService executor = Executors.newFixedThreadPool(job.threads())) {
+            MemorySegment input = in.map(FileChannel.MapMode.READ_ONLY, 0, size, arena);
+            long[] bounds = chunkBounds(input, from, job.threads());
+            int chunkCount = bounds.length - 1;
+            
+            List<Callable<Long>> counts = new ArrayList<>(chunkCount);
+            for (int c = 0; c < chunkCount; c++) {
+                long start = bounds[c];
+                long end = bounds[c + 1];
+                counts.add(() -> NewlineScanner.count(input, start, end));
+            }
+            List<Long> newlines = invokeAll(executor, counts);
+            
+            List<Chunk> chunks = new ArrayList<>(chunkCount);
+            long lines = 0;
+            long read = 0;
+            long written = 0;
+            for (int c = 0; c < chunkCount && lines < job.maxLines(); c++) {
+                long start = bounds[c];
+                long end = bounds[c + 1];
+                // Only the last chunk can end without a newline
+                long chunkLines = newlines.get(c) + (input.get(ValueLayout.JAVA_BYTE, end - 1) == '\n' ? 0 : 1);
+                if (chunkLines > job.maxLines() - lines) {
+                    chunkLines = job.maxLines() - lines;
+                    end = endOfLines(input, start, end, chunkLines);
+                }
+                long firstLine = job.startLine() + lines;
+                chunks.add(new Chunk(start, end, chunkLines, firstLine, written));
+                read += end - start;
+                written += end - start + LineNumberer.prefixBytes(firstLine, chunkLines);
+                lines += chunkLines;
+            }
+            
+            List<Callable<Long>> writes = new ArrayList<>(chunks.size());
+            for (Chunk chunk : chunks) {
+                writes.add(() -> writeChunk(input, chunk, out));
+            }
+            invokeAll(executor, writes);
+            return new FileCopier.Result(read, written, lines);
+        }
+    }
+    
+    /**
+     * @return chunk boundaries from the given offset on, each one except the last directly after a newline
+     */
+    private static long[] chunkBounds(MemorySegment input, long from, int threads) {
+        long size = input.byteSize();
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, (size - from) / ((long) threads * CHUNKS_PER_THREAD));
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(from);
+        long position = from;
+        while (position < size) {
+            position = Math.min(size, position + chunkSize);
+            if (position < size) {
+                long newline = NewlineScanner.indexOf(input, position - 1, size);
+                position = newline < 0 ? size : newline + 1;
+            }
+            bounds.add(position);
+        }
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+    
+    /**
+     * @return the offset just after the lines-th line starting at start
+     */
+    private static long endOfLines(MemorySegment input, long start, long end, long lines) {
+        long last = NewlineScanner.nth(input, start, end, lines);
+        return last < 0 ? end : last + 1;
+    }
+    
+    private static long writeChunk(MemorySegment input, Chunk chunk, FileChannel out) throws IOException {
+        ChunkCopyEvent event = ChunkCopyEvent.start();
+        ByteBuffer source = input.asSlice(chunk.start(), chunk.end() - chunk.start()).asByteBuffer();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        LineNumberer numberer = new LineNumberer(chunk.lines(), true, chunk.firstLine());
+        long position = chunk.outputOffset();
+        while (true) {
+            boolean done = numberer.transform(source, buffer);
+            if (done || !source.hasRemaining() || !buffer.hasRemaining()) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    position += out.write(buffer, position);
+                }
+                buffer.clear();
+            }
+            if (done || !source.hasRemaining()) {
+                event.finish(chunk.start(), source.position(), position - chunk.outputOffset(), numberer.lines());
+                return position - chunk.outputOffset();
+            }
+        }
+    }
+    
+    private static <T> List<T> invokeAll(ExecutorService executor, List<Callable<T>> tasks) throws IOException {
+        try {
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while numbering lines");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package linecommand;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Copy split into three stages that run at the same time, so the disk keeps reading
+ * while lines are transformed and written:
+ * <pre>
+ * reader thread    --filled--&gt;   caller thread (LineNumberer)   --output--&gt;   writer thread
+ *                 &lt;--empty---                                   &lt;--empty----
+ * </pre>
+ * The reader and writer use AsynchronousFileChannel. Each side has a fixed pool of direct
+ * buffers that circulates through single-producer/single-consumer lock-free queues,
+ * so the steady state allocates nothing. Throughput approaches the slower of reading
+ * and writing rather than their sum.
+ */
+final class PipelinedCopier {
+    
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int BUFFERS = 4;
+    
+    /**
+     * Marks the end of the stream in the filled and output queues.
+     */
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+    
+    private final CopyJob job;
+    private final long start;
+    private final SpscQueue<ByteBuffer> filled = new SpscQueue<>(BUFFERS + 1);
+    private final SpscQueue<ByteBuffer> emptyInputs = new SpscQueue<>(BUFFERS);
+    private final SpscQueue<ByteBuffer> output = new SpscQueue<>(BUFFERS + 1);
+    private final SpscQueue<ByteBuffer> emptyOutputs = new SpscQueue<>(BUFFERS);
+    
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean cancelled;
+    private volatile boolean inputClosed;
+    private long bytesWritten;
+    
+    private PipelinedCopier(CopyJob job, long start) {
+        this.job = job;
+        this.start = start;
+        for (int i = 0; i < BUFFERS; i++) {
+            emptyInputs.offer(ByteBuffer.allocateDirect(BUFFER_SIZE));
+            emptyOutputs.offer(ByteBuffer.allocateDirect(BUFFER_SIZE));
+        }
+    }
+    
+    /**
+     * @param start offset at which job.startLine() begins
+     */
+    static FileCopier.Result copy(CopyJob job, long start) throws IOException {
+        return new PipelinedCopier(job, start).run();
+    }
+    
+    private FileCopier.Result run() throws IOException {
+        job.checkDistinctFiles();
+        try (AsynchronousFileChannel in = AsynchronousFileChannel.open(job.input(), StandardOpenOption.READ);
+             AsynchronousFileChannel out = AsynchronousFileChannel.open(job.output(), StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Thread reader = Thread.ofPlatform().name("linecommand-reader").start(() -> guard(() -> read(in)));
+            Thread writer = Thread.ofPlatform().name("linecommand-writer").start(() -> guard(() -> write(out)));
+            LineNumberer numberer = new LineNumberer(job.maxLines(), job.printLineNumbers(), job.startLine());
+            long bytesRead = 0;
+            try {
+                bytesRead = transform(numberer);
+            } catch (Throwable e) {
+                fail(e);
+            }
+            try {
+                reader.join();
+                writer.join();
+            } catch (InterruptedException e) {
+                cancelled = true;
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while copying " + job.input());
+            }
+            rethrowFailure();
+            return new FileCopier.Result(bytesRead, bytesWritten, numberer.lines());
+        }
+    }
+    
+    /**
+     * Reader stage: fills empty input buffers until end of file or until the transform needs no more.
+     */
+    private void read(AsynchronousFileChannel in) throws Exception {
+        long position = start;
+        while (true) {
+            ByteBuffer buffer = take(emptyInputs, true);
+            if (buffer == null) {
+                return;
+            }
+            buffer.clear();
+            int count = in.read(buffer, position).get();
+            if (count < 0) {
+                filled.offer(END);
+                return;
+            }
+            position += count;
+            filled.offer(buffer.flip());
+        }
+    }
+    
+    /**
+     * Transform stage, on the caller thread: moves lines from input buffers to output buffers.
+     * @return the number of input bytes consumed
+     */
+    private long transform(LineNumberer numberer) {
+        long consumed = 0;
+        ByteBuffer out = take(emptyOutputs, false);
+        while (out != null) {
+            ByteBuffer in = take(filled, false);
+            if (in == null || in == END) {
+                break;
+            }
+            boolean done = false;
+            while (!done) {
+                done = numberer.transform(in, out);
+                if (!out.hasRemaining()) {
+                    output.offer(out.flip());
+                    out = take(emptyOutputs, false);
+                    if (out == null) {
+                        return consumed;
+                    }
+                } else if (!in.hasRemaining()) {
+                    break;
+                }
+            }
+            consumed += in.position();
+            emptyInputs.offer(in);
+            if (done) {
+                inputClosed = true;
+                break;
+            }
+        }
+        if (out != null) {
+            output.offer(out.flip());
+        }
+        output.offer(END);
+        return consumed;
+    }
+    
+    /**
+     * Writer stage: drains output buffers to the file and hands them back.
+     */
+    private void write(AsynchronousFileChannel out) throws Exception {
+        long position = 0;
+        while (true) {
+            ByteBuffer buffer = take(output, false);
+            if (buffer == null || buffer == END) {
+                bytesWritten = position;
+                return;
+            }
+            while (buffer.hasRemaining()) {
+                position += out.write(buffer, position).get();
+            }
+            emptyOutputs.offer(buffer.clear());
+        }
+    }
+    
+    /**
+     * Waits for the next item, spinning briefly and then parking.
+     * @param reader whether the caller is the reader, which also stops once no more input is wanted
+     * @return the item, or null if the copy was cancelled
+     */
+    private ByteBuffer take(SpscQueue<ByteBuffer> queue, boolean reader) {
+        int idle = 0;
+        while (true) {
+            ByteBuffer item = queue.poll();
+            if (item != null) {
+                return item;
+            }
+            if (cancelled || (reader && inputClosed)) {
+                return null;
+            }
+            if (++idle < 100) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(50_000);
+            }
+        }
+    }
+    
+    private interface Stage {
+        void run() throws Exception;
+    }
+    
+    private void guard(Stage stage) {
+        try {
+            stage.run();
+        } catch (Throwable e) {
+            fail(e);
+        }
+    }
+    
+    private void fail(Throwable e) {
+        failure.compareAndSet(null, e instanceof ExecutionException ? e.getCause() : e);
+        cancelled = true;
+    }
+    
+    private void rethrowFailure() throws IOException {
+        Throwable e = failure.get();
+        if (e == null) {
+            return;
+        }
+        if (e instanceof IOException io) {
+            throw io;
+        }
+        if (e instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (e instanceof Error error) {
+            throw error;
+        }
+        throw new IOException("Pipelined copy failed", e);
+    }
+}
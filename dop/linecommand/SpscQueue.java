@@ -0,0 +1,54 @@
+package linecommand;
+
+/**
+ * Bounded lock-free queue for exactly one producer thread and one consumer thread.
+ * The producer only writes tail and the consumer only writes head; the volatile
+ * write of each index publishes the slot it covers to the other side.
+ */
+final class SpscQueue<T> {
+    
+    private final Object[] slots;
+    private final int mask;
+    private volatile long head;
+    private volatile long tail;
+    
+    /**
+     * @param capacity maximum number of queued items, rounded up to a power of two
+     */
+    SpscQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.slots = new Object[size];
+        this.mask = size - 1;
+    }
+    
+    /**
+     * Called by the producer only.
+     * @return false if the queue is full
+     */
+    boolean offer(T item) {
+        long t = tail;
+        if (t - head == slots.length) {
+            return false;
+        }
+        slots[(int) (t & mask)] = item;
+        tail = t + 1;
+        return true;
+    }
+    
+    /**
+     * Called by the consumer only.
+     * @return the oldest item, or null if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    T poll() {
+        long h = head;
+        if (h == tail) {
+            return null;
+        }
+        int index = (int) (h & mask);
+        T item = (T) slots[index];
+        slots[index] = null;
+        head = h + 1;
+        return item;
+    }
+}
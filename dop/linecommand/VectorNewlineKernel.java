@@ -0,0 +1,63 @@
+package linecommand;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteOrder;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * NewlineScanner kernel on the incubator Vector API: compares a full vector of bytes
+ * against '\n' per step and works on the resulting lane mask. The tail shorter than
+ * a vector is left to the SWAR kernel.
+ * Only loaded when jdk.incubator.vector is resolved.
+ */
+final class VectorNewlineKernel implements NewlineScanner.Kernel {
+    
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    
+    private final NewlineScanner.Swar tail = new NewlineScanner.Swar();
+    
+    @Override
+    public long indexOf(MemorySegment segment, long from, long to) {
+        long i = from;
+        for (; i + LANES <= to; i += LANES) {
+            VectorMask<Byte> newlines = load(segment, i).eq((byte) '\n');
+            if (newlines.anyTrue()) {
+                return i + newlines.firstTrue();
+            }
+        }
+        return tail.indexOf(segment, i, to);
+    }
+    
+    @Override
+    public long count(MemorySegment segment, long from, long to) {
+        long count = 0;
+        long i = from;
+        for (; i + LANES <= to; i += LANES) {
+            count += load(segment, i).eq((byte) '\n').trueCount();
+        }
+        return count + tail.count(segment, i, to);
+    }
+    
+    @Override
+    public long nth(MemorySegment segment, long from, long to, long n) {
+        long i = from;
+        for (; i + LANES <= to; i += LANES) {
+            VectorMask<Byte> newlines = load(segment, i).eq((byte) '\n');
+            int found = newlines.trueCount();
+            if (found >= n) {
+                // At most 64 byte lanes, so the mask fits in a long
+                return i + NewlineScanner.Swar.nthSetBit(newlines.toLong(), n);
+            }
+            n -= found;
+        }
+        return tail.nth(segment, i, to, n);
+    }
+    
+    private static ByteVector load(MemorySegment segment, long offset) {
+        return ByteVector.fromMemorySegment(SPECIES, segment, offset, ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,27 @@
+package patternmatching;
+
+/**
+ * An axis-aligned box, inclusive of its edges, as returned by the bounds kernels of
+ * PointArray, CircleArray and RectangleArray. The bounds of nothing is EMPTY, whose
+ * minimum lies above its maximum.
+ */
+public record Bounds(double minX, double minY, double maxX, double maxY) {
+    
+    public static final Bounds EMPTY = new Bounds(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
+    
+    /**
+     * @return true if the box contains no point at all
+     */
+    public boolean isEmpty() {
+        return minX > maxX || minY > maxY;
+    }
+    
+    /**
+     * @return the smallest box containing both boxes
+     */
+    public Bounds union(Bounds other) {
+        return new Bounds(Math.min(minX, other.minX), Math.min(minY, other.minY),
+                Math.max(maxX, other.maxX), Math.max(maxY, other.maxY));
+    }
+}
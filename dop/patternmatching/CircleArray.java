@@ -0,0 +1,238 @@
+package patternmatching;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * A growable list of Circles stored as center x, center y and radius columns, 16 bytes
+ * a circle instead of a Circle and a Point record plus a reference. Areas follow
+ * PatternMatchingSwitchDemo.calculateArea to the bit. Not thread-safe.
+ */
+public final class CircleArray {
+    
+    private int[] centerX;
+    private int[] centerY;
+    private double[] radius;
+    private int size;
+    
+    public CircleArray() {
+        this(16);
+    }
+    
+    public CircleArray(int capacity) {
+        centerX = new int[capacity];
+        centerY = new int[capacity];
+        radius = new double[capacity];
+    }
+    
+    public static CircleArray of(Circle... circles) {
+        return of(Arrays.asList(circles));
+    }
+    
+    public static CircleArray of(Collection<Circle> circles) {
+        CircleArray array = new CircleArray(circles.size());
+        for (Circle circle : circles) {
+            array.add(circle);
+        }
+        return array;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public void add(int cx, int cy, double r) {
+        if (size == radius.length) {
+            grow();
+        }
+        centerX[size] = cx;
+        centerY[size] = cy;
+        radius[size] = r;
+        size++;
+    }
+    
+    public void add(Circle circle) {
+        add(circle.center().x(), circle.center().y(), circle.radius());
+    }
+    
+    public int centerX(int index) {
+        return centerX[Objects.checkIndex(index, size)];
+    }
+    
+    public int centerY(int index) {
+        return centerY[Objects.checkIndex(index, size)];
+    }
+    
+    public double radius(int index) {
+        return radius[Objects.checkIndex(index, size)];
+    }
+    
+    /**
+     * @return a new Circle, with a new center Point, for the circle at index
+     */
+    public Circle get(int index) {
+        Objects.checkIndex(index, size);
+        return new Circle(new Point(centerX[index], centerY[index]), radius[index]);
+    }
+    
+    public void set(int index, int cx, int cy, double r) {
+        Objects.checkIndex(index, size);
+        centerX[index] = cx;
+        centerY[index] = cy;
+        radius[index] = r;
+    }
+    
+    /**
+     * Drops spare capacity, so that the columns hold exactly size() circles.
+     */
+    public void trimToSize() {
+        centerX = Arrays.copyOf(centerX, size);
+        centerY = Arrays.copyOf(centerY, size);
+        radius = Arrays.copyOf(radius, size);
+    }
+    
+    /**
+     * @return the smallest box containing every circle, or Bounds.EMPTY
+     */
+    public Bounds bounds() {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            double r = radius[i];
+            minX = Math.min(minX, centerX[i] - r);
+            maxX = Math.max(maxX, centerX[i] + r);
+            minY = Math.min(minY, centerY[i] - r);
+            maxY = Math.max(maxY, centerY[i] + r);
+        }
+        return size == 0 ? Bounds.EMPTY : new Bounds(minX, minY, maxX, maxY);
+    }
+    
+    /**
+     * Writes calculateArea of every circle into areas[0..size()).
+     * @return areas
+     */
+    public double[] areas(double[] areas) {
+        Objects.checkFromIndexSize(0, size, areas.length);
+        for (int i = 0; i < size; i++) {
+            double r = radius[i];
+            areas[i] = Math.PI * r * r;
+        }
+        return areas;
+    }
+    
+    /**
+     * @return the sum of calculateArea over the circles, added in index order
+     */
+    public double totalArea() {
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            double r = radius[i];
+            sum += Math.PI * r * r;
+        }
+        return sum;
+    }
+    
+    /**
+     * Moves every center by (dx, dy); coordinates wrap on overflow like int arithmetic.
+     */
+    public void translate(int dx, int dy) {
+        for (int i = 0; i < size; i++) {
+            centerX[i] += dx;
+        }
+        for (int i = 0; i < size; i++) {
+            centerY[i] += dy;
+        }
+    }
+    
+    /**
+     * Scales every circle about the origin. Centers are rounded as Math.round does and
+     * saturate at the int range; radii are multiplied by the magnitude of the factor.
+     */
+    public void scale(double factor) {
+        double magnitude = Math.abs(factor);
+        for (int i = 0; i < size; i++) {
+            centerX[i] = Math.clamp(Math.round(centerX[i] * factor), Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+        for (int i = 0; i < size; i++) {
+            centerY[i] = Math.clamp(Math.round(centerY[i] * factor), Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+        for (int i = 0; i < size; i++) {
+            radius[i] *= magnitude;
+        }
+    }
+    
+    /**
+     * @return a cursor before the first circle
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+    
+    private void grow() {
+        int capacity = Math.max(16, radius.length * 2);
+        centerX = Arrays.copyOf(centerX, capacity);
+        centerY = Arrays.copyOf(centerY, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+    }
+    
+    /**
+     * A movable view of one circle, reused for every element.
+     */
+    public final class Cursor {
+        private int index = -1;
+        
+        private Cursor() {
+        }
+        
+        /**
+         * Advances to the next circle.
+         * @return false once past the last circle
+         */
+        public boolean next() {
+            return ++index < size;
+        }
+        
+        /**
+         * Points the cursor at the circle at index.
+         * @return this cursor
+         */
+        public Cursor moveTo(int index) {
+            this.index = Objects.checkIndex(index, size);
+            return this;
+        }
+        
+        public int index() {
+            return index;
+        }
+        
+        public int centerX() {
+            return centerX[index];
+        }
+        
+        public int centerY() {
+            return centerY[index];
+        }
+        
+        public double radius() {
+            return radius[index];
+        }
+        
+        /**
+         * @return calculateArea of the current circle
+         */
+        public double area() {
+            double r = radius[index];
+            return Math.PI * r * r;
+        }
+        
+        /**
+         * Materializes the current circle as a record.
+         */
+        public Circle toCircle() {
+            return new Circle(new Point(centerX[index], centerY[index]), radius[index]);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package patternmatching;
+
+/**
+ * Geometry of the Point, Circle and Rectangle records, shared by the spatial index implementations.
+ * A Rectangle's corners may come in any order; its box is the min/max of both points.
+ * All tests are inclusive of the boundary.
+ */
+final class Geometry {
+    
+    private Geometry() {
+    }
+    
+    /**
+     * Axis-aligned bounding boxes of indexed shapes, stored column-wise.
+     */
+    static final class Boxes {
+        final Object[] shapes;
+        final double[] minX;
+        final double[] minY;
+        final double[] maxX;
+        final double[] maxY;
+        
+        Boxes(Object[] shapes) {
+            int n = shapes.length;
+            this.shapes = shapes;
+            this.minX = new double[n];
+            this.minY = new double[n];
+            this.maxX = new double[n];
+            this.maxY = new double[n];
+            for (int i = 0; i < n; i++) {
+                switch (shapes[i]) {
+                    case Point(int x, int y) -> set(i, x, y, x, y);
+                    case Circle(Point(int cx, int cy), double r) -> set(i, cx - r, cy - r, cx + r, cy + r);
+                    case Rectangle(Point(int x1, int y1), Point(int x2, int y2)) ->
+                            set(i, Math.min(x1, x2), Math.min(y1, y2), Math.max(x1, x2), Math.max(y1, y2));
+                    case null -> throw new NullPointerException("shape");
+                    default -> throw new IllegalArgumentException(
+                            "Cannot index " + shapes[i].getClass().getSimpleName());
+                }
+            }
+        }
+        
+        private void set(int i, double x1, double y1, double x2, double y2) {
+            minX[i] = x1;
+            minY[i] = y1;
+            maxX[i] = x2;
+            maxY[i] = y2;
+        }
+        
+        int size() {
+            return shapes.length;
+        }
+    }
+    
+    /**
+     * @return true if the shape contains the point
+     */
+    static boolean contains(Object shape, int px, int py) {
+        return intersects(shape, px, py, px, py);
+    }
+    
+    /**
+     * @return true if the shape intersects the box
+     */
+    static boolean intersects(Object shape, double minX, double minY, double maxX, double maxY) {
+        return switch (shape) {
+            case Point(int x, int y) -> x >= minX && x <= maxX && y >= minY && y <= maxY;
+            case Circle(Point(int cx, int cy), double r) -> {
+                double dx = gap(cx, minX, maxX);
+                double dy = gap(cy, minY, maxY);
+                yield dx * dx + dy * dy <= r * r;
+            }
+            case Rectangle(Point(int x1, int y1), Point(int x2, int y2)) ->
+                    Math.min(x1, x2) <= maxX && Math.max(x1, x2) >= minX
+                            && Math.min(y1, y2) <= maxY && Math.max(y1, y2) >= minY;
+            default -> false;
+        };
+    }
+    
+    /**
+     * @return the distance from the point to the shape, zero if the shape contains it
+     */
+    static double distance(Object shape, int px, int py) {
+        return switch (shape) {
+            case Point(int x, int y) -> Math.hypot(px - x, py - y);
+            case Circle(Point(int cx, int cy), double r) -> Math.max(0, Math.hypot(px - cx, py - cy) - r);
+            case Rectangle(Point(int x1, int y1), Point(int x2, int y2)) -> Math.hypot(
+                    gap(px, Math.min(x1, x2), Math.max(x1, x2)),
+                    gap(py, Math.min(y1, y2), Math.max(y1, y2)));
+            default -> Double.POSITIVE_INFINITY;
+        };
+    }
+    
+    /**
+     * @return the distance from the point to the box, zero if inside
+     */
+    static double boxDistance(int px, int py, double minX, double minY, double maxX, double maxY) {
+        return Math.hypot(gap(px, minX, maxX), gap(py, minY, maxY));
+    }
+    
+    /**
+     * @return how far v lies outside [min, max], zero if inside
+     */
+    static double gap(double v, double min, double max) {
+        return v < min ? min - v : v > max ? v - max : 0;
+    }
+}
@@ -0,0 +1,234 @@
+package patternmatching;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Uniform grid over the bounding box of all shapes. Every shape is listed in each cell
+ * its bounding box overlaps, so lookups only test the shapes of the cells they touch.
+ * Works best when shapes are evenly spread and small relative to a cell.
+ */
+final class GridIndex implements SpatialIndex {
+    
+    /**
+     * Average number of shapes per cell the grid is sized for.
+     */
+    private static final int SHAPES_PER_CELL = 4;
+    
+    /**
+     * A cell holding more shapes than this means the data is clustered.
+     */
+    private static final int MAX_BALANCED_CELL = 16 * SHAPES_PER_CELL;
+    
+    private final Geometry.Boxes boxes;
+    private final Layout layout;
+    private final int[] cellStart;
+    private final int[] cellShapes;
+    private final boolean balanced;
+    
+    GridIndex(Geometry.Boxes boxes) {
+        this.boxes = boxes;
+        this.layout = Layout.of(boxes);
+        
+        int cells = layout.cols() * layout.rows();
+        cellStart = new int[cells + 1];
+        long references = 0;
+        int fullest = 0;
+        for (int i = 0; i < boxes.size(); i++) {
+            for (int row = layout.row(boxes.minY[i]); row <= layout.row(boxes.maxY[i]); row++) {
+                for (int col = layout.col(boxes.minX[i]); col <= layout.col(boxes.maxX[i]); col++) {
+                    int cell = row * layout.cols() + col;
+                    fullest = Math.max(fullest, ++cellStart[cell + 1]);
+                    references++;
+                }
+            }
+        }
+        balanced = fullest <= MAX_BALANCED_CELL && references <= 2L * boxes.size();
+        
+        for (int cell = 0; cell < cells; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        cellShapes = new int[Math.toIntExact(references)];
+        int[] fill = cellStart.clone();
+        for (int i = 0; i < boxes.size(); i++) {
+            for (int row = layout.row(boxes.minY[i]); row <= layout.row(boxes.maxY[i]); row++) {
+                for (int col = layout.col(boxes.minX[i]); col <= layout.col(boxes.maxX[i]); col++) {
+                    cellShapes[fill[row * layout.cols() + col]++] = i;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Cell geometry: cols x rows cells of equal size starting at the origin.
+     * Coordinates outside the grid are clamped to the border cells.
+     */
+    private record Layout(double originX, double originY, double cellWidth, double cellHeight, int cols, int rows) {
+        
+        static Layout of(Geometry.Boxes boxes) {
+            double minX = Double.POSITIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < boxes.size(); i++) {
+                minX = Math.min(minX, boxes.minX[i]);
+                minY = Math.min(minY, boxes.minY[i]);
+                maxX = Math.max(maxX, boxes.maxX[i]);
+                maxY = Math.max(maxY, boxes.maxY[i]);
+            }
+            if (boxes.size() == 0) {
+                return new Layout(0, 0, 1, 1, 1, 1);
+            }
+            int side = Math.max(1, (int) Math.ceil(Math.sqrt((double) boxes.size() / SHAPES_PER_CELL)));
+            return new Layout(minX, minY, Math.max((maxX - minX) / side, Double.MIN_NORMAL),
+                    Math.max((maxY - minY) / side, Double.MIN_NORMAL), side, side);
+        }
+        
+        int col(double x) {
+            return clamp((int) Math.floor((x - originX) / cellWidth), cols);
+        }
+        
+        int row(double y) {
+            return clamp((int) Math.floor((y - originY) / cellHeight), rows);
+        }
+        
+        private static int clamp(int index, int size) {
+            return Math.max(0, Math.min(size - 1, index));
+        }
+    }
+    
+    /**
+     * @return true if shapes fill the grid evenly enough for it to beat an R-tree
+     */
+    boolean isBalanced() {
+        return balanced;
+    }
+    
+    Geometry.Boxes boxes() {
+        return boxes;
+    }
+    
+    @Override
+    public List<Object> containing(Point point) {
+        List<Object> result = new ArrayList<>();
+        // No bounds check: a point outside the grid lands in a border cell and fails the exact test,
+        // while comparing against originX + cols * cellWidth would round and miss points on the max edge
+        int cell = layout.row(point.y()) * layout.cols() + layout.col(point.x());
+        for (int j = cellStart[cell]; j < cellStart[cell + 1]; j++) {
+            Object shape = boxes.shapes[cellShapes[j]];
+            if (Geometry.contains(shape, point.x(), point.y())) {
+                result.add(shape);
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public List<Object> intersecting(Rectangle rectangle) {
+        Point a = rectangle.topLeft();
+        Point b = rectangle.bottomRight();
+        double x1 = Math.min(a.x(), b.x());
+        double y1 = Math.min(a.y(), b.y());
+        double x2 = Math.max(a.x(), b.x());
+        double y2 = Math.max(a.y(), b.y());
+        List<Object> result = new ArrayList<>();
+        for (int row = layout.row(y1); row <= layout.row(y2); row++) {
+            for (int col = layout.col(x1); col <= layout.col(x2); col++) {
+                int cell = row * layout.cols() + col;
+                for (int j = cellStart[cell]; j < cellStart[cell + 1]; j++) {
+                    int i = cellShapes[j];
+                    // A shape spanning several cells is reported only from the cell holding
+                    // the lower corner of its overlap with the query, so no duplicate check is needed
+                    if (layout.col(Math.max(x1, boxes.minX[i])) == col
+                            && layout.row(Math.max(y1, boxes.minY[i])) == row
+                            && Geometry.intersects(boxes.shapes[i], x1, y1, x2, y2)) {
+                        result.add(boxes.shapes[i]);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Searches rings of cells around the point until no unseen shape can be closer
+     * than the k-th best found so far.
+     */
+    @Override
+    public List<Object> nearest(Point point, int k) {
+        List<Object> result = new ArrayList<>(Math.max(0, k));
+        if (k <= 0 || boxes.size() == 0) {
+            return result;
+        }
+        int px = point.x();
+        int py = point.y();
+        int centerCol = layout.col(px);
+        int centerRow = layout.row(py);
+        // Max-heap of the best k shapes found so far, farthest on top
+        PriorityQueue<double[]> best = new PriorityQueue<>(k, (e1, e2) -> Double.compare(e2[0], e1[0]));
+        BitSet seen = new BitSet(boxes.size());
+        
+        for (int ring = 0; ; ring++) {
+            int left = centerCol - ring;
+            int right = centerCol + ring;
+            int top = centerRow - ring;
+            int bottom = centerRow + ring;
+            for (int row = Math.max(0, top); row <= Math.min(layout.rows() - 1, bottom); row++) {
+                boolean edgeRow = row == top || row == bottom;
+                for (int col = Math.max(0, left); col <= Math.min(layout.cols() - 1, right); col++) {
+                    if (!edgeRow && col != left && col != right) {
+                        continue;
+                    }
+                    int cell = row * layout.cols() + col;
+                    for (int j = cellStart[cell]; j < cellStart[cell + 1]; j++) {
+                        int i = cellShapes[j];
+                        if (seen.get(i)) {
+                            continue;
+                        }
+                        seen.set(i);
+                        double distance = Geometry.distance(boxes.shapes[i], px, py);
+                        if (best.size() < k) {
+                            best.add(new double[] {distance, i});
+                        } else if (distance < best.peek()[0]) {
+                            best.poll();
+                            best.add(new double[] {distance, i});
+                        }
+                    }
+                }
+            }
+            
+            // Unseen shapes lie entirely in cells outside this ring
+            double bound = Double.POSITIVE_INFINITY;
+            if (left > 0) {
+                bound = Math.min(bound, px - (layout.originX() + left * layout.cellWidth()));
+            }
+            if (right < layout.cols() - 1) {
+                bound = Math.min(bound, layout.originX() + (right + 1) * layout.cellWidth() - px);
+            }
+            if (top > 0) {
+                bound = Math.min(bound, py - (layout.originY() + top * layout.cellHeight()));
+            }
+            if (bottom < layout.rows() - 1) {
+                bound = Math.min(bound, layout.originY() + (bottom + 1) * layout.cellHeight() - py);
+            }
+            if (bound == Double.POSITIVE_INFINITY || (best.size() == k && best.peek()[0] <= bound)) {
+                break;
+            }
+        }
+        
+        double[][] entries = best.toArray(new double[0][]);
+        Arrays.sort(entries, (e1, e2) -> Double.compare(e1[0], e2[0]));
+        for (double[] entry : entries) {
+            result.add(boxes.shapes[(int) entry[1]]);
+        }
+        return result;
+    }
+    
+    @Override
+    public int size() {
+        return boxes.size();
+    }
+}
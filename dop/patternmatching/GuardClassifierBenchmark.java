@@ -0,0 +1,148 @@
+package patternmatching;
+
+import bench.Bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares IntGuardClassifier with the processWithGuards switch applied to boxed values.
+ * One operation is one classified int. The switch cases box each int as processWithGuards'
+ * callers do and count, or collect positions into lists, by the matched case.
+ * <p>
+ * Before measuring, processWithGuards itself is run on a sample of the inputs and on the
+ * edge values, its printed lines are mapped back to categories, and every classifier
+ * method must agree with them element for element.
+ * Run one case per JVM, e.g. {@code java patternmatching.GuardClassifierBenchmark counts/vector}.
+ */
+public class GuardClassifierBenchmark {
+    
+    private static final int SIZE = 1 << 20;
+    private static final int[] EDGES = {Integer.MIN_VALUE, -101, -1, 0, 1, 2, 99, 100, 101, 102, Integer.MAX_VALUE};
+    
+    public static void main(String[] args) {
+        int[] values = new Random(42).ints(SIZE, -50, 250).toArray();
+        verify(values);
+        System.out.println("Vector kernel: " + IntGuardClassifier.isVectorized());
+        
+        Bench bench = new Bench(args);
+        IntGuardClassifier.Scalar scalar = new IntGuardClassifier.Scalar();
+        
+        bench.run("counts/switch", SIZE, () -> {
+            long[] counts = new long[5];
+            for (int value : values) {
+                counts[boxedCategory(value)]++;
+            }
+            return counts[3];
+        });
+        bench.run("counts/scalar", SIZE, () -> scalar.counts(values, 0, SIZE)[3]);
+        bench.run("counts/" + (IntGuardClassifier.isVectorized() ? "vector" : "kernel"), SIZE,
+                () -> IntGuardClassifier.counts(values)[3]);
+        bench.run("counts/parallel", SIZE, () -> IntGuardClassifier.parallelCounts(values)[3]);
+        bench.run("counts/stream", SIZE, () -> IntGuardClassifier.counts(Arrays.stream(values))[3]);
+        bench.run("indices/switch", SIZE, () -> {
+            List<List<Integer>> indices = new ArrayList<>();
+            for (int c = 0; c < 5; c++) {
+                indices.add(new ArrayList<>());
+            }
+            for (int i = 0; i < values.length; i++) {
+                indices.get(boxedCategory(values[i])).add(i);
+            }
+            return indices.get(3).size();
+        });
+        bench.run("indices/classifier", SIZE, () -> IntGuardClassifier.indices(values)[3].length);
+        bench.run("indices/parallel", SIZE, () -> IntGuardClassifier.parallelIndices(values)[3].length);
+    }
+    
+    /**
+     * The Integer guards of processWithGuards on a boxed value, numbered like Category.
+     */
+    private static int boxedCategory(Object obj) {
+        return switch (obj) {
+            case Integer i when i > 100 -> 0;
+            case Integer i when i < 0 -> 1;
+            case Integer i when i == 0 -> 2;
+            case Integer i when i % 2 == 0 -> 3;
+            case Integer _ -> 4;
+            default -> throw new IllegalArgumentException("Not an Integer: " + obj);
+        };
+    }
+    
+    private static void verify(int[] values) {
+        int[] sample = new int[4096 + EDGES.length];
+        System.arraycopy(values, 0, sample, 0, 4096);
+        System.arraycopy(EDGES, 0, sample, 4096, EDGES.length);
+        
+        IntGuardClassifier.Category[] expected = printedCategories(sample);
+        long[] counts = new long[5];
+        List<List<Integer>> positions = new ArrayList<>();
+        for (int c = 0; c < 5; c++) {
+            positions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < sample.length; i++) {
+            int c = expected[i].ordinal();
+            counts[c]++;
+            positions.get(c).add(i);
+            check(IntGuardClassifier.Category.of(sample[i]) == expected[i], "category of " + sample[i]);
+        }
+        check(Arrays.equals(IntGuardClassifier.counts(sample), counts), "counts");
+        check(Arrays.equals(new IntGuardClassifier.Scalar().counts(sample, 0, sample.length), counts), "scalar counts");
+        check(Arrays.equals(IntGuardClassifier.counts(Arrays.stream(sample).parallel()), counts), "stream counts");
+        int[][] indices = IntGuardClassifier.indices(sample);
+        for (int c = 0; c < 5; c++) {
+            check(Arrays.equals(indices[c], positions.get(c).stream().mapToInt(Integer::intValue).toArray()),
+                    "indices of " + IntGuardClassifier.Category.values()[c]);
+        }
+        
+        // The full input is larger than one chunk, so the parallel paths split it
+        long[] full = new long[5];
+        for (int value : values) {
+            full[boxedCategory(value)]++;
+        }
+        check(Arrays.equals(IntGuardClassifier.counts(values), full), "counts of the input");
+        check(Arrays.equals(IntGuardClassifier.parallelCounts(values), full), "parallel counts");
+        check(Arrays.deepEquals(IntGuardClassifier.parallelIndices(values), IntGuardClassifier.indices(values)),
+                "parallel indices");
+    }
+    
+    /**
+     * Runs processWithGuards on each value and reads the case it took from what it printed.
+     */
+    private static IntGuardClassifier.Category[] printedCategories(int[] values) {
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(captured, true, StandardCharsets.UTF_8));
+        try {
+            for (int value : values) {
+                PatternMatchingSwitchDemo.processWithGuards(value);
+            }
+        } finally {
+            System.setOut(out);
+        }
+        String[] lines = captured.toString(StandardCharsets.UTF_8).split("\\R");
+        check(lines.length == values.length, "one line per value");
+        IntGuardClassifier.Category[] categories = new IntGuardClassifier.Category[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            categories[i] = line.startsWith("Large positive") ? IntGuardClassifier.Category.LARGE_POSITIVE
+                    : line.startsWith("Negative") ? IntGuardClassifier.Category.NEGATIVE
+                    : line.equals("Zero") ? IntGuardClassifier.Category.ZERO
+                    : line.startsWith("Even positive") ? IntGuardClassifier.Category.EVEN_POSITIVE
+                    : line.startsWith("Odd positive") ? IntGuardClassifier.Category.ODD_POSITIVE
+                    : null;
+            check(categories[i] != null, "unexpected line " + line);
+        }
+        return categories;
+    }
+    
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new AssertionError("IntGuardClassifier disagrees with processWithGuards: " + what);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package patternmatching;
+
+/**
+ * TypeDispatcher versions of the Object switches in PatternMatchingSwitchDemo,
+ * with the same case order and guards. Each returns what the original returns
+ * or prints, so outputs can be compared one to one.
+ */
+public final class ObjectDispatchers {
+    
+    /**
+     * Same result as PatternMatchingSwitchDemo.describeObject.
+     */
+    public static final TypeDispatcher<String> DESCRIBE_OBJECT = TypeDispatcher.<String>builder()
+            .when(String.class, s -> s.length() > 10, s -> "Long string with " + s.length() + " characters")
+            .on(String.class, s -> "String: " + s)
+            .when(Integer.class, i -> i > 100, i -> "Large integer: " + i)
+            .on(Integer.class, i -> "Integer: " + i)
+            .onNull(() -> "Null object")
+            .otherwise(obj -> "Other: " + obj.getClass().getSimpleName());
+    
+    /**
+     * The line PatternMatchingSwitchDemo.processObjectWithSwitch prints.
+     */
+    public static final TypeDispatcher<String> OBJECT_MESSAGE = TypeDispatcher.<String>builder()
+            .on(String.class, s -> s.length() > 5 ? "Long string: " + s.toUpperCase() : "Short string: " + s)
+            .on(Integer.class, i -> "Integer value: " + i)
+            .onNull(() -> "Object is null")
+            .otherwise(obj -> "Unknown type: " + obj.getClass().getSimpleName());
+    
+    /**
+     * The line PatternMatchingSwitchDemo.processNumber prints.
+     */
+    public static final TypeDispatcher<String> NUMBER_MESSAGE = TypeDispatcher.<String>builder()
+            .on(Byte.class, b -> "Byte: " + b)
+            .on(Short.class, s -> "Short: " + s)
+            .on(Integer.class, i -> "Integer: " + i)
+            .on(Long.class, l -> "Long: " + l)
+            .on(Float.class, f -> "Float: " + f)
+            .on(Double.class, d -> "Double: " + d)
+            .onNull(() -> "Null number")
+            .otherwise(obj -> "Not a number type");
+    
+    private ObjectDispatchers() {
+    }
+}
@@ -0,0 +1,227 @@
+package patternmatching;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Allocation-free versions of describeObject, describePerson and processShape from
+ * PatternMatchingSwitchDemo. They render into a caller-supplied StringBuilder, any
+ * Appendable, or a ByteBuffer as UTF-8, and produce exactly the text of the originals
+ * (processShape's without the line separator println adds).
+ * <p>
+ * Numbers are appended digit by digit into a builder, never through Integer.toString or
+ * boxing. Doubles are formatted by appendDouble, which matches Double.toString without
+ * allocating for magnitudes from 10^-3 to 10^7, the range Double.toString prints without
+ * an exponent.
+ * Appendables other than StringBuilder and ByteBuffers are filled from one reusable
+ * scratch builder, so a renderer is not thread-safe; use one per thread.
+ */
+public final class ObjectRenderer {
+    
+    private final StringBuilder scratch = new StringBuilder(128);
+    
+    /**
+     * Appends PatternMatchingSwitchDemo.describeObject(obj).
+     */
+    public static StringBuilder describeObject(Object obj, StringBuilder out) {
+        return switch (obj) {
+            case String s when s.length() > 10 ->
+                out.append("Long string with ").append(s.length()).append(" characters");
+            case String s -> out.append("String: ").append(s);
+            case Integer i when i > 100 -> out.append("Large integer: ").append(i.intValue());
+            case Integer i -> out.append("Integer: ").append(i.intValue());
+            case null -> out.append("Null object");
+            default -> out.append("Other: ").append(obj.getClass().getSimpleName());
+        };
+    }
+    
+    /**
+     * Appends PatternMatchingSwitchDemo.describePerson(obj).
+     */
+    public static StringBuilder describePerson(Object obj, StringBuilder out) {
+        return switch (obj) {
+            case Person(String name, int age) when age < 18 ->
+                out.append(name).append(" is a minor (age ").append(age).append(')');
+            case Person(String name, int age) when age >= 65 ->
+                out.append(name).append(" is a senior (age ").append(age).append(')');
+            case Person(String name, int age) ->
+                out.append(name).append(" is an adult (age ").append(age).append(')');
+            case null -> out.append("No person provided");
+            default -> out.append("Not a person");
+        };
+    }
+    
+    /**
+     * Appends the line PatternMatchingSwitchDemo.processShape(shape) prints.
+     */
+    public static StringBuilder processShape(Object shape, StringBuilder out) {
+        return switch (shape) {
+            case Point(int x, int y) -> out.append("Point: x=").append(x).append(", y=").append(y);
+            case Circle(Point(int cx, int cy), double radius) -> {
+                out.append("Circle: center=(").append(cx).append(',').append(cy).append("), radius=");
+                yield appendDouble(out, radius);
+            }
+            case Rectangle(Point(int x1, int y1), Point(int x2, int y2)) ->
+                out.append("Rectangle: topLeft=(").append(x1).append(',').append(y1)
+                        .append("), bottomRight=(").append(x2).append(',').append(y2)
+                        .append("), size=").append(Math.abs(x2 - x1)).append('x').append(Math.abs(y2 - y1));
+            case Person(String name, int age) -> out.append("Person: ").append(name).append(", age ").append(age);
+            case null -> out.append("Shape is null");
+            default -> out.append("Unknown shape: ").append(shape.getClass().getSimpleName());
+        };
+    }
+    
+    /**
+     * Appends PatternMatchingSwitchDemo.describeObject(obj).
+     */
+    public <A extends Appendable> A describeObject(Object obj, A out) throws IOException {
+        return copy(describeObject(obj, target(out)), out);
+    }
+    
+    /**
+     * Appends PatternMatchingSwitchDemo.describePerson(obj).
+     */
+    public <A extends Appendable> A describePerson(Object obj, A out) throws IOException {
+        return copy(describePerson(obj, target(out)), out);
+    }
+    
+    /**
+     * Appends the line PatternMatchingSwitchDemo.processShape(shape) prints.
+     */
+    public <A extends Appendable> A processShape(Object shape, A out) throws IOException {
+        return copy(processShape(shape, target(out)), out);
+    }
+    
+    /**
+     * Puts the UTF-8 bytes of PatternMatchingSwitchDemo.describeObject(obj).
+     * @throws java.nio.BufferOverflowException if they do not fit
+     */
+    public ByteBuffer describeObject(Object obj, ByteBuffer out) {
+        return encode(describeObject(obj, clearedScratch()), out);
+    }
+    
+    /**
+     * Puts the UTF-8 bytes of PatternMatchingSwitchDemo.describePerson(obj).
+     * @throws java.nio.BufferOverflowException if they do not fit
+     */
+    public ByteBuffer describePerson(Object obj, ByteBuffer out) {
+        return encode(describePerson(obj, clearedScratch()), out);
+    }
+    
+    /**
+     * Puts the UTF-8 bytes of the line PatternMatchingSwitchDemo.processShape(shape) prints.
+     * @throws java.nio.BufferOverflowException if they do not fit
+     */
+    public ByteBuffer processShape(Object shape, ByteBuffer out) {
+        return encode(processShape(shape, clearedScratch()), out);
+    }
+    
+    /**
+     * Appends the same characters as Double.toString(value). Inside the plain-notation range
+     * the shortest decimal that rounds to value is found with exact 128-bit arithmetic;
+     * among decimals of that length the closest wins, ties going to the even one, as in
+     * Double.toString. Other values go through StringBuilder.append(double), which allocates.
+     */
+    static StringBuilder appendDouble(StringBuilder out, double value) {
+        double magnitude = Math.abs(value);
+        if (value == 0) {
+            return out.append(Double.doubleToRawLongBits(value) < 0 ? "-0.0" : "0.0");
+        }
+        if (!(magnitude >= 1e-3 && magnitude < 1e7)) {
+            return out.append(value);
+        }
+        long bits = Double.doubleToRawLongBits(magnitude);
+        long mantissa = bits & (1L << 52) - 1 | 1L << 52;
+        // magnitude = mantissa * 2^-shift, with shift between 29 and 62 in this range
+        int shift = 1075 - (int) (bits >>> 52);
+        long power = 1;
+        for (int digits = 0; digits <= 19; digits++, power *= 10) {
+            // scaled = magnitude * 10^digits = (mantissa * power) >> shift, split into whole and fraction
+            long high = Math.unsignedMultiplyHigh(mantissa, power);
+            long low = mantissa * power;
+            if (high >>> shift != 0) {
+                break;
+            }
+            long whole = high << 64 - shift | low >>> shift;
+            long fraction = low & (1L << shift) - 1;
+            long half = 1L << shift - 1;
+            boolean up = fraction > half || fraction == half && (whole & 1) != 0;
+            long distance = up ? (1L << shift) - fraction : fraction;
+            // Rounding interval: half an ulp on each side, a quarter below powers of two
+            boolean narrowBelow = !up && mantissa == 1L << 52;
+            long scaledDistance = narrowBelow ? distance << 2 : distance << 1;
+            int comparison = Long.compareUnsigned(scaledDistance, power);
+            if (comparison < 0 || comparison == 0 && (mantissa & 1) == 0) {
+                long decimal = up ? whole + 1 : whole;
+                if (decimal >= 10_000_000 * power) {
+                    break;
+                }
+                if (value < 0) {
+                    out.append('-');
+                }
+                out.append(decimal / power).append('.');
+                if (digits == 0) {
+                    return out.append('0');
+                }
+                long rest = decimal % power;
+                for (long unit = power / 10; unit > 0; unit /= 10) {
+                    out.append((char) ('0' + rest / unit % 10));
+                }
+                return out;
+            }
+        }
+        return out.append(value);
+    }
+    
+    private StringBuilder clearedScratch() {
+        scratch.setLength(0);
+        return scratch;
+    }
+    
+    /**
+     * @return out itself if it is a StringBuilder, so that nothing needs copying
+     */
+    private StringBuilder target(Appendable out) {
+        return out instanceof StringBuilder builder ? builder : clearedScratch();
+    }
+    
+    /**
+     * Copies the rendered text unless it was rendered into out directly.
+     * Characters go one at a time, since Writer and PrintStream turn a whole
+     * CharSequence into a String first.
+     */
+    private static <A extends Appendable> A copy(StringBuilder rendered, A out) throws IOException {
+        if (rendered != out) {
+            for (int i = 0; i < rendered.length(); i++) {
+                out.append(rendered.charAt(i));
+            }
+        }
+        return out;
+    }
+    
+    /**
+     * Encodes like String.getBytes(UTF_8), including its '?' for unpaired surrogates.
+     */
+    private static ByteBuffer encode(CharSequence text, ByteBuffer out) {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xc0 | c >> 6)).put((byte) (0x80 | c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                out.put((byte) (0xf0 | codePoint >> 18))
+                        .put((byte) (0x80 | codePoint >> 12 & 0x3f))
+                        .put((byte) (0x80 | codePoint >> 6 & 0x3f))
+                        .put((byte) (0x80 | codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                out.put((byte) '?');
+            } else {
+                out.put((byte) (0xe0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3f)).put((byte) (0x80 | c & 0x3f));
+            }
+        }
+        return out;
+    }
+}
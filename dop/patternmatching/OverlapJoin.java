@@ -0,0 +1,216 @@
+package patternmatching;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Finds every pair of overlapping shapes among Circle, Rectangle and Point records without
+ * testing all n² pairs, and streams the pairs to a callback instead of collecting them.
+ * <ol>
+ * <li>Broad phase: shapes are sorted by the left edge of their bounding boxes and swept from
+ *     left to right. An active set holds the shapes whose boxes still reach the sweep line;
+ *     each new shape is tested only against it, first by y extent.</li>
+ * <li>Narrow phase: box pairs that overlap are confirmed with the exact geometry, circle to
+ *     circle by center distance and circle to box by the distance from the center to the box.</li>
+ * </ol>
+ * Overlap includes touching, as in SpatialIndex. The columns are permuted into sweep order
+ * once, so the sweep reads them sequentially.
+ * <p>
+ * parallelJoin() cuts the sweep order into slabs and sweeps them on the common fork-join pool.
+ * A slab starts with the active set the sequential sweep would have there, rebuilt by walking
+ * back no further than the widest box, so every pair is still reported exactly once.
+ */
+public final class OverlapJoin {
+    
+    private static final byte POINT = 0;
+    private static final byte CIRCLE = 1;
+    private static final byte RECTANGLE = 2;
+    
+    private static final int SLABS_PER_THREAD = 4;
+    private static final int MIN_SLAB = 1 << 12;
+    
+    /**
+     * Receives one overlapping pair, as positions in the joined collection with first &lt; second.
+     * parallelJoin() calls it from several threads at once.
+     */
+    @FunctionalInterface
+    public interface PairConsumer {
+        void accept(int first, int second);
+    }
+    
+    // Columns in sweep order; left is the sort key, rounded down to a float, never above minX
+    private final int[] index;
+    private final float[] left;
+    private final double[] minX;
+    private final double[] maxX;
+    private final double[] minY;
+    private final double[] maxY;
+    private final byte[] kind;
+    private final int[] centerX;
+    private final int[] centerY;
+    private final double[] radius;
+    private final double widest;
+    
+    private OverlapJoin(Geometry.Boxes boxes) {
+        int n = boxes.size();
+        index = sortByLeft(boxes.minX);
+        left = new float[n];
+        minX = new double[n];
+        maxX = new double[n];
+        minY = new double[n];
+        maxY = new double[n];
+        kind = new byte[n];
+        centerX = new int[n];
+        centerY = new int[n];
+        radius = new double[n];
+        double width = 0;
+        for (int s = 0; s < n; s++) {
+            int i = index[s];
+            left[s] = floorToFloat(boxes.minX[i]);
+            minX[s] = boxes.minX[i];
+            maxX[s] = boxes.maxX[i];
+            minY[s] = boxes.minY[i];
+            maxY[s] = boxes.maxY[i];
+            switch (boxes.shapes[i]) {
+                case Circle(Point(int cx, int cy), double r) -> {
+                    kind[s] = CIRCLE;
+                    centerX[s] = cx;
+                    centerY[s] = cy;
+                    radius[s] = r;
+                }
+                case Rectangle _ -> kind[s] = RECTANGLE;
+                default -> kind[s] = POINT;
+            }
+            width = Math.max(width, maxX[s] - left[s]);
+        }
+        widest = width;
+    }
+    
+    /**
+     * Prepares a join over Circle, Rectangle and Point records.
+     * @throws IllegalArgumentException if an element is of another type
+     */
+    public static OverlapJoin of(Collection<?> shapes) {
+        return new OverlapJoin(new Geometry.Boxes(shapes.toArray()));
+    }
+    
+    public int size() {
+        return index.length;
+    }
+    
+    /**
+     * Sweeps on the calling thread.
+     * @return the number of pairs passed to consumer
+     */
+    public long join(PairConsumer consumer) {
+        return sweep(0, index.length, consumer);
+    }
+    
+    /**
+     * Sweeps slabs on the common fork-join pool; consumer must be thread-safe.
+     * @return the number of pairs passed to consumer
+     */
+    public long parallelJoin(PairConsumer consumer) {
+        int n = index.length;
+        int slabs = Math.max(1, Math.min(n / MIN_SLAB,
+                ForkJoinPool.commonPool().getParallelism() * SLABS_PER_THREAD));
+        LongAdder pairs = new LongAdder();
+        IntStream.range(0, slabs).parallel().forEach(slab -> pairs.add(
+                sweep((int) ((long) n * slab / slabs), (int) ((long) n * (slab + 1) / slabs), consumer)));
+        return pairs.sum();
+    }
+    
+    /**
+     * Reports the pairs whose later shape in sweep order lies in [from, to).
+     */
+    private long sweep(int from, int to, PairConsumer consumer) {
+        int[] active = new int[16];
+        int activeCount = 0;
+        // Shapes before the slab that still reach its first left edge
+        if (from < to) {
+            float start = left[from];
+            for (int s = from - 1; s >= 0 && left[s] >= start - widest; s--) {
+                if (maxX[s] >= start) {
+                    if (activeCount == active.length) {
+                        active = Arrays.copyOf(active, 2 * activeCount);
+                    }
+                    active[activeCount++] = s;
+                }
+            }
+        }
+        long pairs = 0;
+        for (int b = from; b < to; b++) {
+            float sweepLine = left[b];
+            for (int k = 0; k < activeCount; ) {
+                int a = active[k];
+                if (maxX[a] < sweepLine) {
+                    active[k] = active[--activeCount];
+                } else {
+                    if (minY[a] <= maxY[b] && maxY[a] >= minY[b] && maxX[a] >= minX[b] && minX[a] <= maxX[b]
+                            && overlaps(a, b)) {
+                        consumer.accept(Math.min(index[a], index[b]), Math.max(index[a], index[b]));
+                        pairs++;
+                    }
+                    k++;
+                }
+            }
+            if (activeCount == active.length) {
+                active = Arrays.copyOf(active, 2 * activeCount);
+            }
+            active[activeCount++] = b;
+        }
+        return pairs;
+    }
+    
+    /**
+     * Exact test for two shapes whose boxes overlap.
+     */
+    private boolean overlaps(int a, int b) {
+        if (kind[a] == CIRCLE) {
+            if (kind[b] == CIRCLE) {
+                double dx = (double) centerX[a] - centerX[b];
+                double dy = (double) centerY[a] - centerY[b];
+                double reach = radius[a] + radius[b];
+                return dx * dx + dy * dy <= reach * reach;
+            }
+            return circleMeetsBox(a, b);
+        }
+        return kind[b] != CIRCLE || circleMeetsBox(b, a);
+    }
+    
+    private boolean circleMeetsBox(int circle, int box) {
+        double dx = Geometry.gap(centerX[circle], minX[box], maxX[box]);
+        double dy = Geometry.gap(centerY[circle], minY[box], maxY[box]);
+        return dx * dx + dy * dy <= radius[circle] * radius[circle];
+    }
+    
+    /**
+     * @return the largest float not above value, so float sort keys never overstate a left edge
+     */
+    private static float floorToFloat(double value) {
+        float f = (float) value;
+        return f > value ? Math.nextDown(f) : f;
+    }
+    
+    /**
+     * Sorts shape indices by left edge without boxing, packed into longs as in RTree.
+     * Equal float keys may come in any order; the sweep only relies on the keys being sorted.
+     */
+    private static int[] sortByLeft(double[] minX) {
+        long[] packed = new long[minX.length];
+        for (int i = 0; i < minX.length; i++) {
+            int bits = Float.floatToIntBits(floorToFloat(minX[i]));
+            int sortable = bits ^ ((bits >> 31) & 0x7fffffff);
+            packed[i] = ((long) sortable << 32) | i;
+        }
+        Arrays.sort(packed);
+        int[] order = new int[minX.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = (int) packed[i];
+        }
+        return order;
+    }
+}
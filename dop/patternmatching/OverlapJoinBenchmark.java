@@ -0,0 +1,178 @@
+package patternmatching;
+
+import bench.Bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Compares OverlapJoin with the pairwise loop that switches over record patterns for every
+ * pair, and shows how both scale. One operation is one input shape; the density of shapes
+ * is the same at every size, so each shape has about as many neighbours.
+ * <p>
+ * Before measuring, join() and parallelJoin() must report exactly the pairs the pairwise loop
+ * finds on uniform, clustered, touching and far-out inputs, each pair once.
+ * Run one case per JVM, e.g. {@code java patternmatching.OverlapJoinBenchmark sweep/100000}.
+ */
+public class OverlapJoinBenchmark {
+    
+    private static final int[] SIZES = {1_000, 10_000, 100_000, 1_000_000};
+    private static final int BRUTE_FORCE_LIMIT = 10_000;
+    
+    public static void main(String[] args) {
+        verify();
+        System.out.println("Verified against the pairwise loop\n");
+        
+        Bench bench = new Bench(args);
+        for (int size : SIZES) {
+            List<Object> shapes = uniform(size, new Random(size));
+            OverlapJoin join = OverlapJoin.of(shapes);
+            if (size <= BRUTE_FORCE_LIMIT) {
+                bench.run("pairwise/" + size, size, () -> bruteForce(shapes, (a, b) -> { }));
+            }
+            bench.run("sweep/" + size, size, () -> join.join((a, b) -> { }));
+            bench.run("parallel/" + size, size, () -> join.parallelJoin((a, b) -> { }));
+            bench.run("build+sweep/" + size, size, () -> OverlapJoin.of(shapes).join((a, b) -> { }));
+        }
+    }
+    
+    /**
+     * Tests every pair with a switch over record patterns.
+     */
+    private static long bruteForce(List<Object> shapes, OverlapJoin.PairConsumer consumer) {
+        long pairs = 0;
+        for (int i = 0; i < shapes.size(); i++) {
+            for (int j = i + 1; j < shapes.size(); j++) {
+                if (overlaps(shapes.get(i), shapes.get(j))) {
+                    consumer.accept(i, j);
+                    pairs++;
+                }
+            }
+        }
+        return pairs;
+    }
+    
+    private static boolean overlaps(Object a, Object b) {
+        return switch (a) {
+            case Circle(Point(int x1, int y1), double r1) when b instanceof Circle(Point(int x2, int y2), double r2) ->
+                    square((double) x1 - x2) + square((double) y1 - y2) <= square(r1 + r2);
+            case Circle _ -> Geometry.intersects(a, minX(b), minY(b), maxX(b), maxY(b));
+            default -> Geometry.intersects(b, minX(a), minY(a), maxX(a), maxY(a));
+        };
+    }
+    
+    private static double square(double v) {
+        return v * v;
+    }
+    
+    private static double minX(Object shape) {
+        return switch (shape) {
+            case Point(int x, int _) -> x;
+            case Rectangle(Point(int x1, int _), Point(int x2, int _)) -> Math.min(x1, x2);
+            default -> throw new IllegalArgumentException("No box: " + shape);
+        };
+    }
+    
+    private static double minY(Object shape) {
+        return switch (shape) {
+            case Point(int _, int y) -> y;
+            case Rectangle(Point(int _, int y1), Point(int _, int y2)) -> Math.min(y1, y2);
+            default -> throw new IllegalArgumentException("No box: " + shape);
+        };
+    }
+    
+    private static double maxX(Object shape) {
+        return switch (shape) {
+            case Point(int x, int _) -> x;
+            case Rectangle(Point(int x1, int _), Point(int x2, int _)) -> Math.max(x1, x2);
+            default -> throw new IllegalArgumentException("No box: " + shape);
+        };
+    }
+    
+    private static double maxY(Object shape) {
+        return switch (shape) {
+            case Point(int _, int y) -> y;
+            case Rectangle(Point(int _, int y1), Point(int _, int y2)) -> Math.max(y1, y2);
+            default -> throw new IllegalArgumentException("No box: " + shape);
+        };
+    }
+    
+    /**
+     * Circles, rectangles with corners in any order and a few points, spread over a square
+     * that grows with the count so the density stays the same.
+     */
+    private static List<Object> uniform(int count, Random random) {
+        return shapes(count, random, (int) Math.sqrt(count) * 30, 0);
+    }
+    
+    private static List<Object> shapes(int count, Random random, int side, int offset) {
+        List<Object> shapes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int x = offset + random.nextInt(side);
+            int y = offset + random.nextInt(side);
+            int kind = random.nextInt(10);
+            if (kind < 5) {
+                shapes.add(new Circle(new Point(x, y), 1 + random.nextInt(10) + random.nextDouble()));
+            } else if (kind < 9) {
+                shapes.add(new Rectangle(new Point(x, y), new Point(x - 20 + random.nextInt(41), y + random.nextInt(21))));
+            } else {
+                shapes.add(new Point(x, y));
+            }
+        }
+        return shapes;
+    }
+    
+    private static void verify() {
+        Random random = new Random(42);
+        List<Object> touching = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            touching.add(new Circle(new Point(10 * i, 0), 5));
+            touching.add(new Rectangle(new Point(10 * i - 5, 5), new Point(10 * i + 5, 10)));
+            touching.add(new Circle(new Point(10 * i + 8, 14), 5));
+            touching.add(new Point(10 * i, -5));
+        }
+        List<List<Object>> inputs = List.of(
+                List.of(),
+                touching,
+                uniform(12_000, random),
+                shapes(12_000, random, 200, 0),
+                shapes(12_000, random, 100_000, 2_000_000_000 - 100_000),
+                shapes(12_000, random, 1_000_000, -500_000));
+        for (List<Object> shapes : inputs) {
+            long[] expected = collect(shapes, consumer -> bruteForce(shapes, consumer));
+            OverlapJoin join = OverlapJoin.of(shapes);
+            check(Arrays.equals(collect(shapes, join::join), expected), "join", shapes.size());
+            check(Arrays.equals(collect(shapes, join::parallelJoin), expected), "parallelJoin", shapes.size());
+        }
+    }
+    
+    private interface Join {
+        long run(OverlapJoin.PairConsumer consumer);
+    }
+    
+    /**
+     * @return the reported pairs packed as first * size + second, sorted
+     */
+    private static long[] collect(List<Object> shapes, Join join) {
+        ConcurrentLinkedQueue<Long> pairs = new ConcurrentLinkedQueue<>();
+        long count = join.run((first, second) -> {
+            check(first < second, "pair order", shapes.size());
+            pairs.add((long) first * shapes.size() + second);
+        });
+        check(count == pairs.size(), "pair count", shapes.size());
+        long[] sorted = pairs.stream().mapToLong(Long::longValue).sorted().toArray();
+        for (int i = 1; i < sorted.length; i++) {
+            check(sorted[i] != sorted[i - 1], "duplicate pair", shapes.size());
+        }
+        return sorted;
+    }
+    
+    private static void check(boolean condition, String what, int size) {
+        if (!condition) {
+            throw new AssertionError("OverlapJoin disagrees with the pairwise loop: " + what + " on " + size + " shapes");
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package patternmatching;
+
+import bench.Bench;
+
+import java.util.Random;
+
+/**
+ * Benchmarks the record-deconstruction switch of PatternMatchingSwitchDemo.calculateArea
+ * against an equivalent instanceof chain.
+ * <p>
+ * Inputs range from monomorphic (circles only) over bimorphic and megamorphic record mixes
+ * to null-heavy and default-heavy arrays, where most elements hit the {@code case null}
+ * or {@code default} branch. Run one case per JVM, e.g.
+ * {@code java patternmatching.PatternDispatchBenchmark switch/null}, to keep profiles clean.
+ */
+public class PatternDispatchBenchmark {
+    
+    private static final int SIZE = 1024;
+    
+    public static void main(String[] args) {
+        Bench bench = new Bench(args);
+        
+        for (Mix mix : Mix.values()) {
+            Object[] inputs = mix.inputs(SIZE, new Random(42));
+            String suffix = "/" + mix.name().toLowerCase();
+            
+            bench.run("switch" + suffix, SIZE, () -> {
+                double sum = 0;
+                for (Object input : inputs) {
+                    sum += PatternMatchingSwitchDemo.calculateArea(input);
+                }
+                return sum;
+            });
+            
+            bench.run("instanceof" + suffix, SIZE, () -> {
+                double sum = 0;
+                for (Object input : inputs) {
+                    sum += areaByInstanceof(input);
+                }
+                return sum;
+            });
+        }
+    }
+    
+    /**
+     * Hand-written equivalent of calculateArea using an instanceof chain.
+     */
+    static double areaByInstanceof(Object shape) {
+        if (shape instanceof Circle(Point _, double radius)) {
+            return Math.PI * radius * radius;
+        } else if (shape instanceof Rectangle(Point(int x1, int y1), Point(int x2, int y2))) {
+            return Math.abs(x2 - x1) * Math.abs(y2 - y1);
+        }
+        return 0.0;
+    }
+    
+    /**
+     * Input distributions for the switch.
+     */
+    enum Mix {
+        MONO, BI, MEGA, NULL_HEAVY, DEFAULT_HEAVY;
+        
+        Object[] inputs(int size, Random random) {
+            Object[] inputs = new Object[size];
+            for (int i = 0; i < size; i++) {
+                inputs[i] = switch (this) {
+                    case MONO -> circle(random);
+                    case BI -> random.nextBoolean() ? circle(random) : rectangle(random);
+                    case MEGA -> record(random);
+                    case NULL_HEAVY -> random.nextInt(4) == 0 ? record(random) : null;
+                    case DEFAULT_HEAVY -> switch (random.nextInt(4)) {
+                        case 0 -> record(random);
+                        case 1 -> "shape-" + i;
+                        case 2 -> i;
+                        default -> (double) i;
+                    };
+                };
+            }
+            return inputs;
+        }
+        
+        private static Object record(Random random) {
+            return switch (random.nextInt(4)) {
+                case 0 -> new Point(random.nextInt(100), random.nextInt(100));
+                case 1 -> circle(random);
+                case 2 -> rectangle(random);
+                default -> new Person("Person" + random.nextInt(100), random.nextInt(90));
+            };
+        }
+        
+        private static Circle circle(Random random) {
+            return new Circle(new Point(random.nextInt(100), random.nextInt(100)), 1 + random.nextDouble() * 10);
+        }
+        
+        private static Rectangle rectangle(Random random) {
+            return new Rectangle(new Point(random.nextInt(50), random.nextInt(50)),
+                    new Point(50 + random.nextInt(50), 50 + random.nextInt(50)));
+        }
+    }
+}
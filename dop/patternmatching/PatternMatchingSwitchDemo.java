@@ -1,5 +1,8 @@
 package patternmatching;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Demonstration of pattern matching with switch expressions (Java 17+).
  * Shows how to use pattern matching to handle different object types in a switch statement.
@@ -38,6 +41,30 @@ public class PatternMatchingSwitchDemo {
         processWithGuards(150);
         processWithGuards(-5);
         processWithGuards(0);
+        
+        // Spatial index over the same records
+        System.out.println("\n=== Spatial Index Demo ===\n");
+        demonstrateSpatialIndex();
+        
+        // Table-driven dispatch with the same cases
+        System.out.println("\n=== Type Dispatch Table Demo ===\n");
+        demonstrateTypeDispatcher();
+        
+        // Column storage for large numbers of records
+        System.out.println("\n=== Shape Arrays Demo ===\n");
+        demonstrateShapeArrays();
+        
+        // Columnar persons with the describePerson brackets
+        System.out.println("\n=== Person Table Demo ===\n");
+        demonstratePersonTable();
+        
+        // The processWithGuards Integer cases over a whole array
+        System.out.println("\n=== Guard Classifier Demo ===\n");
+        demonstrateGuardClassifier();
+        
+        // Every overlapping pair without testing all pairs
+        System.out.println("\n=== Overlap Join Demo ===\n");
+        demonstrateOverlapJoin();
     }
     
     /**
@@ -124,6 +151,107 @@ public class PatternMatchingSwitchDemo {
         System.out.println("Rectangle area: " + calculateArea(new Rectangle(new Point(0, 0), new Point(5, 10))));
     }
     
+    /**
+     * Demonstrates point, range and nearest-neighbour queries over Circle, Rectangle and Point records.
+     */
+    public static void demonstrateSpatialIndex() {
+        SpatialIndex index = SpatialIndex.of(List.of(
+                new Circle(new Point(0, 0), 5.0),
+                new Circle(new Point(20, 20), 3.0),
+                new Rectangle(new Point(-2, -2), new Point(4, 8)),
+                new Point(15, 15)));
+        System.out.println("Index type: " + index.getClass().getSimpleName());
+        System.out.println("Containing (1, 1): " + index.containing(new Point(1, 1)));
+        System.out.println("Intersecting (10,10)-(25,25): "
+                + index.intersecting(new Rectangle(new Point(10, 10), new Point(25, 25))));
+        System.out.println("2 nearest to (14, 14): " + index.nearest(new Point(14, 14), 2));
+    }
+    
+    /**
+     * Runs describeObject and its TypeDispatcher version side by side.
+     */
+    public static void demonstrateTypeDispatcher() {
+        Object[] inputs = {"Hello", "A much longer string", 42, 150, null, 3.14, List.of()};
+        for (Object input : inputs) {
+            String expected = describeObject(input);
+            String dispatched = ObjectDispatchers.DESCRIBE_OBJECT.apply(input);
+            System.out.println(dispatched + (dispatched.equals(expected) ? "" : " (switch: " + expected + ")"));
+        }
+        System.out.println(ObjectDispatchers.NUMBER_MESSAGE.apply((short) 7));
+        System.out.println(ObjectDispatchers.OBJECT_MESSAGE.apply("Hello World"));
+    }
+    
+    /**
+     * Stores records in PointArray, CircleArray and RectangleArray and runs the bulk kernels.
+     */
+    public static void demonstrateShapeArrays() {
+        PointArray points = PointArray.of(new Point(3, 4), new Point(-2, 7), new Point(10, 0));
+        System.out.println("Points: " + points + ", bounds " + points.bounds());
+        points.translate(1, 1);
+        points.scale(2);
+        System.out.println("Translated by (1,1) and scaled by 2: " + points);
+        
+        CircleArray circles = CircleArray.of(new Circle(new Point(0, 0), 5.0), new Circle(new Point(20, 20), 3.0));
+        double total = 0;
+        CircleArray.Cursor circle = circles.cursor();
+        while (circle.next()) {
+            System.out.println("Circle " + circle.index() + " area: " + circle.area()
+                    + " (calculateArea: " + calculateArea(circle.toCircle()) + ")");
+            total += circle.area();
+        }
+        System.out.println("Circle total area: " + circles.totalArea() + ", summed: " + total);
+        System.out.println("Circle bounds: " + circles.bounds());
+        
+        RectangleArray rectangles = RectangleArray.of(new Rectangle(new Point(0, 0), new Point(5, 10)),
+                new Rectangle(new Point(4, 8), new Point(-2, -2)));
+        System.out.println("Rectangle areas: " + Arrays.toString(rectangles.areas(new double[rectangles.size()])));
+        System.out.println("Rectangle bounds: " + rectangles.bounds());
+    }
+    
+    /**
+     * Stores persons column-wise and classifies them with the describePerson brackets.
+     */
+    public static void demonstratePersonTable() {
+        PersonTable people = PersonTable.of(new Person("Alice", 30), new Person("Bob", 16),
+                new Person("Alice", 70), new Person("Carol", 65), new Person("Bob", 18));
+        System.out.println("Rows: " + people.size() + ", distinct names: " + people.distinctNames());
+        long[] counts = people.bracketCounts();
+        for (PersonTable.AgeBracket bracket : PersonTable.AgeBracket.values()) {
+            System.out.println(bracket + ": " + counts[bracket.ordinal()]);
+        }
+        for (int row : people.workingAge()) {
+            System.out.println("Working-age: " + describePerson(people.get(row)));
+        }
+    }
+    
+    /**
+     * Classifies an int[] into the Integer cases of processWithGuards without boxing.
+     */
+    public static void demonstrateGuardClassifier() {
+        int[] values = {42, 150, -5, 0, 7, 100, 101, -100, 64};
+        long[] counts = IntGuardClassifier.counts(values);
+        int[][] indices = IntGuardClassifier.indices(values);
+        for (IntGuardClassifier.Category category : IntGuardClassifier.Category.values()) {
+            System.out.println(category + ": " + counts[category.ordinal()]
+                    + " at " + Arrays.toString(indices[category.ordinal()]));
+        }
+    }
+    
+    /**
+     * Streams the overlapping pairs among circles and rectangles found by a sweep over x.
+     */
+    public static void demonstrateOverlapJoin() {
+        List<Object> shapes = List.of(
+                new Circle(new Point(0, 0), 5),
+                new Rectangle(new Point(3, 3), new Point(10, 8)),
+                new Circle(new Point(12, 6), 2.5),
+                new Rectangle(new Point(20, 0), new Point(30, 10)),
+                new Circle(new Point(40, 40), 1));
+        long pairs = OverlapJoin.of(shapes).join((first, second) ->
+                System.out.println("Overlap: " + shapes.get(first) + " and " + shapes.get(second)));
+        System.out.println("Pairs: " + pairs);
+    }
+    
     /**
      * Demonstrates deconstruction patterns in switch statements.
      * Extracts record components directly in the case labels.
@@ -0,0 +1,294 @@
+package patternmatching;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A growable table of Persons stored as an int[] of ages and an int[] of name codes.
+ * Names are dictionary-encoded: each distinct name is kept once in a pool and rows hold
+ * its position, so a million rows sharing a thousand names keep a thousand Strings.
+ * Persons materialized by get() share the pooled String instances.
+ * <p>
+ * Scans classify ages with the guards of PatternMatchingSwitchDemo: AgeBracket follows
+ * describePerson, and the working-age rule of processShapeWithGuards
+ * ({@code age >= 18 && age < 65}) selects exactly the ADULT bracket. Each scan has a
+ * parallel variant that splits the rows across the common fork-join pool and returns
+ * the same result as the sequential one.
+ * Not thread-safe while rows are being added.
+ */
+public final class PersonTable {
+    
+    /**
+     * Below this many rows a fork-join task stops splitting.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 1 << 16;
+    
+    private static final int NULL_NAME = -1;
+    
+    /**
+     * The cases of describePerson, in the order its guards try them.
+     */
+    public enum AgeBracket {
+        MINOR(Integer.MIN_VALUE, 17),
+        ADULT(18, 64),
+        SENIOR(65, Integer.MAX_VALUE);
+        
+        private final int minAge;
+        private final int maxAge;
+        
+        AgeBracket(int minAge, int maxAge) {
+            this.minAge = minAge;
+            this.maxAge = maxAge;
+        }
+        
+        /**
+         * @return the bracket describePerson puts the age in
+         */
+        public static AgeBracket of(int age) {
+            return age < 18 ? MINOR : age >= 65 ? SENIOR : ADULT;
+        }
+        
+        /**
+         * @return true if the age falls in this bracket
+         */
+        public boolean contains(int age) {
+            return inRange(age, minAge, maxAge);
+        }
+    }
+    
+    private int[] ages;
+    private int[] nameCodes;
+    private int size;
+    private String[] names = new String[16];
+    private int nameCount;
+    private final Map<String, Integer> codes = new HashMap<>();
+    
+    public PersonTable() {
+        this(16);
+    }
+    
+    public PersonTable(int capacity) {
+        ages = new int[capacity];
+        nameCodes = new int[capacity];
+    }
+    
+    public static PersonTable of(Person... people) {
+        return of(Arrays.asList(people));
+    }
+    
+    public static PersonTable of(Collection<Person> people) {
+        PersonTable table = new PersonTable(people.size());
+        for (Person person : people) {
+            table.add(person);
+        }
+        return table;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * @return the number of distinct non-null names in the pool
+     */
+    public int distinctNames() {
+        return nameCount;
+    }
+    
+    public void add(String name, int age) {
+        if (size == ages.length) {
+            int capacity = Math.max(16, size * 2);
+            ages = Arrays.copyOf(ages, capacity);
+            nameCodes = Arrays.copyOf(nameCodes, capacity);
+        }
+        ages[size] = age;
+        nameCodes[size] = encode(name);
+        size++;
+    }
+    
+    public void add(Person person) {
+        add(person.name(), person.age());
+    }
+    
+    public int age(int index) {
+        return ages[Objects.checkIndex(index, size)];
+    }
+    
+    /**
+     * @return the pooled name of the row, or null
+     */
+    public String name(int index) {
+        int code = nameCodes[Objects.checkIndex(index, size)];
+        return code == NULL_NAME ? null : names[code];
+    }
+    
+    /**
+     * @return a new Person for the row, sharing the pooled name
+     */
+    public Person get(int index) {
+        return new Person(name(index), ages[index]);
+    }
+    
+    /**
+     * Drops spare capacity in the row columns and the name pool.
+     */
+    public void trimToSize() {
+        ages = Arrays.copyOf(ages, size);
+        nameCodes = Arrays.copyOf(nameCodes, size);
+        names = Arrays.copyOf(names, nameCount);
+    }
+    
+    /**
+     * @return rows per AgeBracket, indexed by ordinal
+     */
+    public long[] bracketCounts() {
+        return bracketCounts(0, size);
+    }
+    
+    /**
+     * @return the same counts as bracketCounts(), computed on the common fork-join pool
+     */
+    public long[] parallelBracketCounts() {
+        return ForkJoinPool.commonPool().invoke(new CountTask(0, size));
+    }
+    
+    /**
+     * @return the rows processShapeWithGuards reports as working-age, in row order
+     */
+    public int[] workingAge() {
+        return select(AgeBracket.ADULT);
+    }
+    
+    /**
+     * @return the same rows as workingAge(), found on the common fork-join pool
+     */
+    public int[] parallelWorkingAge() {
+        return parallelSelect(AgeBracket.ADULT);
+    }
+    
+    /**
+     * @return the rows in the bracket, in row order
+     */
+    public int[] select(AgeBracket bracket) {
+        return select(bracket, 0, size);
+    }
+    
+    /**
+     * @return the same rows as select(bracket), found on the common fork-join pool
+     */
+    public int[] parallelSelect(AgeBracket bracket) {
+        return ForkJoinPool.commonPool().invoke(new SelectTask(bracket, 0, size));
+    }
+    
+    private int encode(String name) {
+        if (name == null) {
+            return NULL_NAME;
+        }
+        Integer code = codes.get(name);
+        if (code != null) {
+            return code;
+        }
+        if (nameCount == names.length) {
+            names = Arrays.copyOf(names, Math.max(16, nameCount * 2));
+        }
+        names[nameCount] = name;
+        codes.put(name, nameCount);
+        return nameCount++;
+    }
+    
+    /**
+     * Counts without branching on the age: each guard adds 0 or 1, and adults are the rest.
+     */
+    private long[] bracketCounts(int from, int to) {
+        long minors = 0;
+        long seniors = 0;
+        for (int i = from; i < to; i++) {
+            int age = ages[i];
+            minors += age < 18 ? 1 : 0;
+            seniors += age >= 65 ? 1 : 0;
+        }
+        return new long[] {minors, to - from - minors - seniors, seniors};
+    }
+    
+    /**
+     * Compacts matching rows by always storing the row and advancing only on a match.
+     */
+    private int[] select(AgeBracket bracket, int from, int to) {
+        int[] rows = new int[to - from];
+        int count = 0;
+        int minAge = bracket.minAge;
+        int maxAge = bracket.maxAge;
+        for (int i = from; i < to; i++) {
+            rows[count] = i;
+            count += inRange(ages[i], minAge, maxAge) ? 1 : 0;
+        }
+        return Arrays.copyOf(rows, count);
+    }
+    
+    /**
+     * One unsigned comparison, correct for the whole int range.
+     */
+    private static boolean inRange(int age, int minAge, int maxAge) {
+        return Integer.compareUnsigned(age - minAge, maxAge - minAge) <= 0;
+    }
+    
+    @SuppressWarnings("serial")
+    private final class CountTask extends RecursiveTask<long[]> {
+        private final int from;
+        private final int to;
+        
+        CountTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected long[] compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                return bracketCounts(from, to);
+            }
+            int mid = (from + to) >>> 1;
+            CountTask left = new CountTask(from, mid);
+            left.fork();
+            long[] counts = new CountTask(mid, to).compute();
+            long[] leftCounts = left.join();
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += leftCounts[i];
+            }
+            return counts;
+        }
+    }
+    
+    @SuppressWarnings("serial")
+    private final class SelectTask extends RecursiveTask<int[]> {
+        private final AgeBracket bracket;
+        private final int from;
+        private final int to;
+        
+        SelectTask(AgeBracket bracket, int from, int to) {
+            this.bracket = bracket;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected int[] compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                return select(bracket, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            SelectTask left = new SelectTask(bracket, from, mid);
+            left.fork();
+            int[] right = new SelectTask(bracket, mid, to).compute();
+            int[] leftRows = left.join();
+            int[] rows = Arrays.copyOf(leftRows, leftRows.length + right.length);
+            System.arraycopy(right, 0, rows, leftRows.length, right.length);
+            return rows;
+        }
+    }
+}
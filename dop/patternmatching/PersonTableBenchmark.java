@@ -0,0 +1,157 @@
+package patternmatching;
+
+import bench.Bench;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Compares a List of Person records with PersonTable, first by heap used per person and
+ * then by the speed of the describePerson bracket histogram and the processShapeWithGuards
+ * working-age filter. One operation is one person scanned.
+ * <p>
+ * The list's names are separate String copies, as parsing a file would leave them, drawn
+ * from NAMES distinct values. Footprint is the allocation of building FOOTPRINT_SIZE
+ * persons, read from the per-thread allocation counter. Before measuring, every table
+ * scan is checked against the guards applied to the records.
+ * Run one case per JVM, e.g. {@code java patternmatching.PersonTableBenchmark brackets/parallel}.
+ */
+public class PersonTableBenchmark {
+    
+    private static final int SIZE = 1 << 22;
+    private static final int FOOTPRINT_SIZE = 1 << 20;
+    private static final int NAMES = 5000;
+    
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    
+    public static void main(String[] args) {
+        byte[][] names = new byte[NAMES][];
+        for (int i = 0; i < NAMES; i++) {
+            names[i] = ("Person" + i).getBytes(StandardCharsets.ISO_8859_1);
+        }
+        if (args.length == 0) {
+            printFootprint(names);
+        }
+        
+        List<Person> people = people(SIZE, names, new Random(42));
+        PersonTable table = PersonTable.of(people);
+        verify(people, table);
+        
+        Bench bench = new Bench(args);
+        bench.run("brackets/list", SIZE, () -> {
+            long[] counts = new long[3];
+            for (Person person : people) {
+                counts[bracket(person)]++;
+            }
+            return counts[1];
+        });
+        bench.run("brackets/table", SIZE, () -> table.bracketCounts()[1]);
+        bench.run("brackets/parallel", SIZE, () -> table.parallelBracketCounts()[1]);
+        bench.run("workingAge/list", SIZE, () -> {
+            int[] rows = new int[people.size()];
+            int count = 0;
+            for (int i = 0; i < rows.length; i++) {
+                if (people.get(i) instanceof Person(String _, int age) && age >= 18 && age < 65) {
+                    rows[count++] = i;
+                }
+            }
+            return Arrays.copyOf(rows, count).length;
+        });
+        bench.run("workingAge/table", SIZE, () -> table.workingAge().length);
+        bench.run("workingAge/parallel", SIZE, () -> table.parallelWorkingAge().length);
+    }
+    
+    /**
+     * The guards of describePerson, numbered like PersonTable.AgeBracket.
+     */
+    private static int bracket(Person person) {
+        return switch (person) {
+            case Person(String _, int age) when age < 18 -> 0;
+            case Person(String _, int age) when age >= 65 -> 2;
+            case Person _ -> 1;
+        };
+    }
+    
+    private static void printFootprint(byte[][] names) {
+        System.out.printf("%-28s %10s%n", "Footprint (" + FOOTPRINT_SIZE + " persons)", "B/person");
+        Random random = new Random(1);
+        footprint("List<Person>", () -> people(FOOTPRINT_SIZE, names, random));
+        String[] pooled = new String[NAMES];
+        for (int i = 0; i < NAMES; i++) {
+            pooled[i] = new String(names[i], StandardCharsets.ISO_8859_1);
+        }
+        footprint("PersonTable", () -> {
+            PersonTable table = new PersonTable(FOOTPRINT_SIZE);
+            for (int i = 0; i < FOOTPRINT_SIZE; i++) {
+                table.add(pooled[random.nextInt(NAMES)], random.nextInt(100));
+            }
+            return table;
+        });
+        System.out.println();
+    }
+    
+    private static void footprint(String name, Supplier<Object> build) {
+        long thread = Thread.currentThread().threadId();
+        long before = THREADS.getThreadAllocatedBytes(thread);
+        Object built = build.get();
+        long bytes = THREADS.getThreadAllocatedBytes(thread) - before;
+        System.out.printf("%-28s %10.1f%n", name, (double) bytes / FOOTPRINT_SIZE);
+        if (built == null) {
+            throw new AssertionError();
+        }
+    }
+    
+    private static void verify(List<Person> people, PersonTable table) {
+        long[] counts = new long[3];
+        List<Integer> workingAge = new ArrayList<>();
+        for (int i = 0; i < people.size(); i++) {
+            Person person = people.get(i);
+            counts[bracket(person)]++;
+            if (person.age() >= 18 && person.age() < 65) {
+                workingAge.add(i);
+            }
+            check(table.get(i).equals(person), "row " + i);
+            check(PersonTable.AgeBracket.of(person.age()).ordinal() == bracket(person), "bracket of row " + i);
+        }
+        int[] expected = workingAge.stream().mapToInt(Integer::intValue).toArray();
+        check(Arrays.equals(table.bracketCounts(), counts), "bracket counts");
+        check(Arrays.equals(table.parallelBracketCounts(), counts), "parallel bracket counts");
+        check(Arrays.equals(table.workingAge(), expected), "working-age rows");
+        check(Arrays.equals(table.parallelWorkingAge(), expected), "parallel working-age rows");
+        for (PersonTable.AgeBracket bracket : PersonTable.AgeBracket.values()) {
+            check(table.parallelSelect(bracket).length == counts[bracket.ordinal()], "rows of " + bracket);
+        }
+        for (int age : new int[] {Integer.MIN_VALUE, -1, 17, 18, 64, 65, Integer.MAX_VALUE}) {
+            PersonTable.AgeBracket bracket = PersonTable.AgeBracket.of(age);
+            check(bracket == switch (bracket(new Person("", age))) {
+                case 0 -> PersonTable.AgeBracket.MINOR;
+                case 1 -> PersonTable.AgeBracket.ADULT;
+                default -> PersonTable.AgeBracket.SENIOR;
+            } && bracket.contains(age), "bracket of age " + age);
+        }
+    }
+    
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new AssertionError("PersonTable disagrees with the guards: " + what);
+        }
+    }
+    
+    /**
+     * Persons aged 0 to 99, each with its own copy of one of the names.
+     */
+    private static List<Person> people(int size, byte[][] names, Random random) {
+        List<Person> people = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String name = new String(names[random.nextInt(names.length)], StandardCharsets.ISO_8859_1);
+            people.add(new Person(name, random.nextInt(100)));
+        }
+        return people;
+    }
+}
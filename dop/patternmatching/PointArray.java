@@ -0,0 +1,208 @@
+package patternmatching;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * A growable list of Points stored as two int columns, 8 bytes a point instead of a
+ * 24-byte record plus a 4-byte reference. Bulk kernels run over the columns; get() materializes
+ * a Point for code that wants the record, and a Cursor walks the points without
+ * allocating one. Points have no area, so there is no area kernel.
+ * Not thread-safe.
+ */
+public final class PointArray {
+    
+    private int[] x;
+    private int[] y;
+    private int size;
+    
+    public PointArray() {
+        this(16);
+    }
+    
+    public PointArray(int capacity) {
+        x = new int[capacity];
+        y = new int[capacity];
+    }
+    
+    public static PointArray of(Point... points) {
+        return of(Arrays.asList(points));
+    }
+    
+    public static PointArray of(Collection<Point> points) {
+        PointArray array = new PointArray(points.size());
+        for (Point point : points) {
+            array.add(point);
+        }
+        return array;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public void add(int px, int py) {
+        if (size == x.length) {
+            grow();
+        }
+        x[size] = px;
+        y[size] = py;
+        size++;
+    }
+    
+    public void add(Point point) {
+        add(point.x(), point.y());
+    }
+    
+    public int x(int index) {
+        return x[Objects.checkIndex(index, size)];
+    }
+    
+    public int y(int index) {
+        return y[Objects.checkIndex(index, size)];
+    }
+    
+    /**
+     * @return a new Point with the coordinates at index
+     */
+    public Point get(int index) {
+        Objects.checkIndex(index, size);
+        return new Point(x[index], y[index]);
+    }
+    
+    public void set(int index, int px, int py) {
+        Objects.checkIndex(index, size);
+        x[index] = px;
+        y[index] = py;
+    }
+    
+    /**
+     * Drops spare capacity, so that the columns hold exactly size() points.
+     */
+    public void trimToSize() {
+        x = Arrays.copyOf(x, size);
+        y = Arrays.copyOf(y, size);
+    }
+    
+    /**
+     * @return the smallest box containing every point, or Bounds.EMPTY
+     */
+    public Bounds bounds() {
+        if (size == 0) {
+            return Bounds.EMPTY;
+        }
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            minX = Math.min(minX, x[i]);
+            maxX = Math.max(maxX, x[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            minY = Math.min(minY, y[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+        return new Bounds(minX, minY, maxX, maxY);
+    }
+    
+    /**
+     * Moves every point by (dx, dy); coordinates wrap on overflow like int arithmetic.
+     */
+    public void translate(int dx, int dy) {
+        for (int i = 0; i < size; i++) {
+            x[i] += dx;
+        }
+        for (int i = 0; i < size; i++) {
+            y[i] += dy;
+        }
+    }
+    
+    /**
+     * Scales every point about the origin, rounding each coordinate as Math.round does
+     * and saturating at the int range.
+     */
+    public void scale(double factor) {
+        for (int i = 0; i < size; i++) {
+            x[i] = Math.clamp(Math.round(x[i] * factor), Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+        for (int i = 0; i < size; i++) {
+            y[i] = Math.clamp(Math.round(y[i] * factor), Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+    }
+    
+    /**
+     * @return a cursor before the first point
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            text.append(i == 0 ? "" : ", ").append('(').append(x[i]).append(',').append(y[i]).append(')');
+        }
+        return text.append(']').toString();
+    }
+    
+    private void grow() {
+        int capacity = Math.max(16, x.length * 2);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+    }
+    
+    /**
+     * A movable view of one point, reused for every element.
+     * <pre>
+     * PointArray.Cursor point = points.cursor();
+     * while (point.next()) {
+     *     sum += point.x();
+     * }
+     * </pre>
+     */
+    public final class Cursor {
+        private int index = -1;
+        
+        private Cursor() {
+        }
+        
+        /**
+         * Advances to the next point.
+         * @return false once past the last point
+         */
+        public boolean next() {
+            return ++index < size;
+        }
+        
+        /**
+         * Points the cursor at the point at index.
+         * @return this cursor
+         */
+        public Cursor moveTo(int index) {
+            this.index = Objects.checkIndex(index, size);
+            return this;
+        }
+        
+        public int index() {
+            return index;
+        }
+        
+        public int x() {
+            return x[index];
+        }
+        
+        public int y() {
+            return y[index];
+        }
+        
+        /**
+         * Materializes the current point as a record.
+         */
+        public Point toPoint() {
+            return new Point(x[index], y[index]);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package patternmatching;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * R-tree bulk-loaded with the sort-tile-recursive (STR) algorithm.
+ * Entries are sorted by x, cut into vertical slabs, each slab sorted by y and packed
+ * into full nodes, level by level. Nodes are never split or updated afterwards.
+ */
+final class RTree implements SpatialIndex {
+    
+    private static final int NODE_CAPACITY = 16;
+    
+    private final Geometry.Boxes boxes;
+    private final Node root;
+    
+    RTree(Geometry.Boxes boxes) {
+        this.boxes = boxes;
+        this.root = build(boxes);
+    }
+    
+    /**
+     * Node bounding box plus either child nodes or, in leaves, item indices into boxes.
+     */
+    private static final class Node {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        Node[] children;
+        int[] items;
+        
+        void include(double x1, double y1, double x2, double y2) {
+            minX = Math.min(minX, x1);
+            minY = Math.min(minY, y1);
+            maxX = Math.max(maxX, x2);
+            maxY = Math.max(maxY, y2);
+        }
+        
+        boolean overlaps(double x1, double y1, double x2, double y2) {
+            return minX <= x2 && maxX >= x1 && minY <= y2 && maxY >= y1;
+        }
+    }
+    
+    /**
+     * Best-first search entry: a node, or an item when node is null.
+     */
+    private record Candidate(double distance, Node node, int item) { }
+    
+    @Override
+    public List<Object> containing(Point point) {
+        List<Object> result = new ArrayList<>();
+        collect(root, point.x(), point.y(), point.x(), point.y(), result);
+        return result;
+    }
+    
+    @Override
+    public List<Object> intersecting(Rectangle rectangle) {
+        Point a = rectangle.topLeft();
+        Point b = rectangle.bottomRight();
+        List<Object> result = new ArrayList<>();
+        collect(root, Math.min(a.x(), b.x()), Math.min(a.y(), b.y()),
+                Math.max(a.x(), b.x()), Math.max(a.y(), b.y()), result);
+        return result;
+    }
+    
+    @Override
+    public List<Object> nearest(Point point, int k) {
+        List<Object> result = new ArrayList<>(Math.max(0, k));
+        if (k <= 0 || boxes.size() == 0) {
+            return result;
+        }
+        int px = point.x();
+        int py = point.y();
+        PriorityQueue<Candidate> queue = new PriorityQueue<>((c1, c2) -> Double.compare(c1.distance(), c2.distance()));
+        queue.add(new Candidate(0, root, -1));
+        while (!queue.isEmpty() && result.size() < k) {
+            Candidate candidate = queue.poll();
+            Node node = candidate.node();
+            if (node == null) {
+                result.add(boxes.shapes[candidate.item()]);
+            } else if (node.children != null) {
+                for (Node child : node.children) {
+                    queue.add(new Candidate(Geometry.boxDistance(px, py,
+                            child.minX, child.minY, child.maxX, child.maxY), child, -1));
+                }
+            } else {
+                for (int item : node.items) {
+                    queue.add(new Candidate(Geometry.distance(boxes.shapes[item], px, py), null, item));
+                }
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public int size() {
+        return boxes.size();
+    }
+    
+    private void collect(Node node, double x1, double y1, double x2, double y2, List<Object> result) {
+        if (!node.overlaps(x1, y1, x2, y2)) {
+            return;
+        }
+        if (node.children != null) {
+            for (Node child : node.children) {
+                collect(child, x1, y1, x2, y2, result);
+            }
+            return;
+        }
+        for (int item : node.items) {
+            Object shape = boxes.shapes[item];
+            if (Geometry.intersects(shape, x1, y1, x2, y2)) {
+                result.add(shape);
+            }
+        }
+    }
+    
+    private static Node build(Geometry.Boxes boxes) {
+        int n = boxes.size();
+        double[] cx = new double[n];
+        double[] cy = new double[n];
+        for (int i = 0; i < n; i++) {
+            cx[i] = (boxes.minX[i] + boxes.maxX[i]) / 2;
+            cy[i] = (boxes.minY[i] + boxes.maxY[i]) / 2;
+        }
+        
+        List<int[]> groups = tile(n, cx, cy);
+        Node[] level = new Node[groups.size()];
+        for (int g = 0; g < level.length; g++) {
+            Node leaf = new Node();
+            leaf.items = groups.get(g);
+            for (int item : leaf.items) {
+                leaf.include(boxes.minX[item], boxes.minY[item], boxes.maxX[item], boxes.maxY[item]);
+            }
+            level[g] = leaf;
+        }
+        
+        while (level.length > 1) {
+            cx = new double[level.length];
+            cy = new double[level.length];
+            for (int i = 0; i < level.length; i++) {
+                cx[i] = (level[i].minX + level[i].maxX) / 2;
+                cy[i] = (level[i].minY + level[i].maxY) / 2;
+            }
+            groups = tile(level.length, cx, cy);
+            Node[] parents = new Node[groups.size()];
+            for (int g = 0; g < parents.length; g++) {
+                int[] group = groups.get(g);
+                Node parent = new Node();
+                parent.children = new Node[group.length];
+                for (int j = 0; j < group.length; j++) {
+                    Node child = level[group[j]];
+                    parent.children[j] = child;
+                    parent.include(child.minX, child.minY, child.maxX, child.maxY);
+                }
+                parents[g] = parent;
+            }
+            level = parents;
+        }
+        
+        if (level.length == 0) {
+            Node empty = new Node();
+            empty.items = new int[0];
+            return empty;
+        }
+        return level[0];
+    }
+    
+    /**
+     * Orders count entries by their centers into sort-tile-recursive groups of at most NODE_CAPACITY.
+     */
+    private static List<int[]> tile(int count, double[] cx, double[] cy) {
+        int nodes = (count + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int slabs = (int) Math.ceil(Math.sqrt(nodes));
+        int slabSize = slabs * NODE_CAPACITY;
+        
+        int[] all = new int[count];
+        Arrays.setAll(all, i -> i);
+        int[] byX = sortBy(cx, all);
+        
+        List<int[]> groups = new ArrayList<>(nodes);
+        for (int start = 0; start < count; start += slabSize) {
+            int[] slab = sortBy(cy, Arrays.copyOfRange(byX, start, Math.min(count, start + slabSize)));
+            for (int j = 0; j < slab.length; j += NODE_CAPACITY) {
+                groups.add(Arrays.copyOfRange(slab, j, Math.min(slab.length, j + NODE_CAPACITY)));
+            }
+        }
+        return groups;
+    }
+    
+    /**
+     * Sorts entry indices by key without boxing: the key, narrowed to a float and made
+     * sortable as an int, goes in the high half of a long and the index in the low half.
+     * The narrowing only affects tiling quality, never query results.
+     */
+    private static int[] sortBy(double[] key, int[] entries) {
+        long[] packed = new long[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            int bits = Float.floatToIntBits((float) key[entries[i]]);
+            int sortable = bits ^ ((bits >> 31) & 0x7fffffff);
+            packed[i] = ((long) sortable << 32) | entries[i];
+        }
+        Arrays.sort(packed);
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = (int) packed[i];
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,248 @@
+package patternmatching;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * A growable list of Rectangles stored as four int corner columns, 16 bytes a rectangle
+ * instead of a Rectangle and two Point records plus a reference. As in the records, the
+ * corners may come in any order. Areas follow PatternMatchingSwitchDemo.calculateArea to
+ * the bit, including its int multiplication of width and height. Not thread-safe.
+ */
+public final class RectangleArray {
+    
+    private int[] x1;
+    private int[] y1;
+    private int[] x2;
+    private int[] y2;
+    private int size;
+    
+    public RectangleArray() {
+        this(16);
+    }
+    
+    public RectangleArray(int capacity) {
+        x1 = new int[capacity];
+        y1 = new int[capacity];
+        x2 = new int[capacity];
+        y2 = new int[capacity];
+    }
+    
+    public static RectangleArray of(Rectangle... rectangles) {
+        return of(Arrays.asList(rectangles));
+    }
+    
+    public static RectangleArray of(Collection<Rectangle> rectangles) {
+        RectangleArray array = new RectangleArray(rectangles.size());
+        for (Rectangle rectangle : rectangles) {
+            array.add(rectangle);
+        }
+        return array;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public void add(int left, int top, int right, int bottom) {
+        if (size == x1.length) {
+            grow();
+        }
+        x1[size] = left;
+        y1[size] = top;
+        x2[size] = right;
+        y2[size] = bottom;
+        size++;
+    }
+    
+    public void add(Rectangle rectangle) {
+        add(rectangle.topLeft().x(), rectangle.topLeft().y(),
+                rectangle.bottomRight().x(), rectangle.bottomRight().y());
+    }
+    
+    /**
+     * @return a new Rectangle, with new corner Points, for the rectangle at index
+     */
+    public Rectangle get(int index) {
+        Objects.checkIndex(index, size);
+        return new Rectangle(new Point(x1[index], y1[index]), new Point(x2[index], y2[index]));
+    }
+    
+    public void set(int index, int left, int top, int right, int bottom) {
+        Objects.checkIndex(index, size);
+        x1[index] = left;
+        y1[index] = top;
+        x2[index] = right;
+        y2[index] = bottom;
+    }
+    
+    /**
+     * Drops spare capacity, so that the columns hold exactly size() rectangles.
+     */
+    public void trimToSize() {
+        x1 = Arrays.copyOf(x1, size);
+        y1 = Arrays.copyOf(y1, size);
+        x2 = Arrays.copyOf(x2, size);
+        y2 = Arrays.copyOf(y2, size);
+    }
+    
+    /**
+     * @return the smallest box containing every rectangle, or Bounds.EMPTY
+     */
+    public Bounds bounds() {
+        if (size == 0) {
+            return Bounds.EMPTY;
+        }
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            minX = Math.min(minX, Math.min(x1[i], x2[i]));
+            maxX = Math.max(maxX, Math.max(x1[i], x2[i]));
+        }
+        for (int i = 0; i < size; i++) {
+            minY = Math.min(minY, Math.min(y1[i], y2[i]));
+            maxY = Math.max(maxY, Math.max(y1[i], y2[i]));
+        }
+        return new Bounds(minX, minY, maxX, maxY);
+    }
+    
+    /**
+     * Writes calculateArea of every rectangle into areas[0..size()).
+     * @return areas
+     */
+    public double[] areas(double[] areas) {
+        Objects.checkFromIndexSize(0, size, areas.length);
+        for (int i = 0; i < size; i++) {
+            areas[i] = area(i);
+        }
+        return areas;
+    }
+    
+    /**
+     * @return the sum of calculateArea over the rectangles, added in index order
+     */
+    public double totalArea() {
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += area(i);
+        }
+        return sum;
+    }
+    
+    /**
+     * Moves every rectangle by (dx, dy); coordinates wrap on overflow like int arithmetic.
+     */
+    public void translate(int dx, int dy) {
+        for (int i = 0; i < size; i++) {
+            x1[i] += dx;
+            x2[i] += dx;
+        }
+        for (int i = 0; i < size; i++) {
+            y1[i] += dy;
+            y2[i] += dy;
+        }
+    }
+    
+    /**
+     * Scales every rectangle about the origin, rounding each corner coordinate as
+     * Math.round does and saturating at the int range.
+     */
+    public void scale(double factor) {
+        for (int i = 0; i < size; i++) {
+            x1[i] = Math.clamp(Math.round(x1[i] * factor), Integer.MIN_VALUE, Integer.MAX_VALUE);
+            x2[i] = Math.clamp(Math.round(x2[i] * factor), Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+        for (int i = 0; i < size; i++) {
+            y1[i] = Math.clamp(Math.round(y1[i] * factor), Integer.MIN_VALUE, Integer.MAX_VALUE);
+            y2[i] = Math.clamp(Math.round(y2[i] * factor), Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+    }
+    
+    /**
+     * @return a cursor before the first rectangle
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+    
+    /**
+     * calculateArea's formula: the int product of width and height, widened afterwards.
+     */
+    private double area(int i) {
+        int width = Math.abs(x2[i] - x1[i]);
+        int height = Math.abs(y2[i] - y1[i]);
+        return width * height;
+    }
+    
+    private void grow() {
+        int capacity = Math.max(16, x1.length * 2);
+        x1 = Arrays.copyOf(x1, capacity);
+        y1 = Arrays.copyOf(y1, capacity);
+        x2 = Arrays.copyOf(x2, capacity);
+        y2 = Arrays.copyOf(y2, capacity);
+    }
+    
+    /**
+     * A movable view of one rectangle, reused for every element.
+     */
+    public final class Cursor {
+        private int index = -1;
+        
+        private Cursor() {
+        }
+        
+        /**
+         * Advances to the next rectangle.
+         * @return false once past the last rectangle
+         */
+        public boolean next() {
+            return ++index < size;
+        }
+        
+        /**
+         * Points the cursor at the rectangle at index.
+         * @return this cursor
+         */
+        public Cursor moveTo(int index) {
+            this.index = Objects.checkIndex(index, size);
+            return this;
+        }
+        
+        public int index() {
+            return index;
+        }
+        
+        public int x1() {
+            return x1[index];
+        }
+        
+        public int y1() {
+            return y1[index];
+        }
+        
+        public int x2() {
+            return x2[index];
+        }
+        
+        public int y2() {
+            return y2[index];
+        }
+        
+        /**
+         * @return calculateArea of the current rectangle
+         */
+        public double area() {
+            return RectangleArray.this.area(index);
+        }
+        
+        /**
+         * Materializes the current rectangle as a record.
+         */
+        public Rectangle toRectangle() {
+            return new Rectangle(new Point(x1[index], y1[index]), new Point(x2[index], y2[index]));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package patternmatching;
+
+import bench.Bench;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares the String-returning describeObject, describePerson and processShape with
+ * ObjectRenderer writing into a reused StringBuilder and a reused ByteBuffer.
+ * One operation is one rendered object; the B/op column should read 0 for the
+ * renderer cases. Before measuring, every input is rendered all three ways and
+ * compared byte for byte with the original.
+ */
+public class RenderBenchmark {
+    
+    private static final int SIZE = 1024;
+    
+    public static void main(String[] args) {
+        Object[] inputs = inputs(new Random(42));
+        verify(inputs);
+        
+        Bench bench = new Bench(args);
+        ObjectRenderer renderer = new ObjectRenderer();
+        StringBuilder builder = new StringBuilder(256);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(256);
+        
+        bench.run("describeObject/string", SIZE, () -> {
+            long length = 0;
+            for (Object input : inputs) {
+                length += PatternMatchingSwitchDemo.describeObject(input).length();
+            }
+            return length;
+        });
+        bench.run("describeObject/builder", SIZE, () -> {
+            long length = 0;
+            for (Object input : inputs) {
+                builder.setLength(0);
+                length += ObjectRenderer.describeObject(input, builder).length();
+            }
+            return length;
+        });
+        bench.run("describeObject/bytes", SIZE, () -> {
+            long length = 0;
+            for (Object input : inputs) {
+                length += renderer.describeObject(input, buffer.clear()).position();
+            }
+            return length;
+        });
+        bench.run("describePerson/string", SIZE, () -> {
+            long length = 0;
+            for (Object input : inputs) {
+                length += PatternMatchingSwitchDemo.describePerson(input).length();
+            }
+            return length;
+        });
+        bench.run("describePerson/builder", SIZE, () -> {
+            long length = 0;
+            for (Object input : inputs) {
+                builder.setLength(0);
+                length += ObjectRenderer.describePerson(input, builder).length();
+            }
+            return length;
+        });
+        bench.run("describePerson/bytes", SIZE, () -> {
+            long length = 0;
+            for (Object input : inputs) {
+                length += renderer.describePerson(input, buffer.clear()).position();
+            }
+            return length;
+        });
+        bench.run("processShape/string", SIZE, () -> {
+            long length = 0;
+            for (Object input : inputs) {
+                length += shapeLine(input).length();
+            }
+            return length;
+        });
+        bench.run("processShape/builder", SIZE, () -> {
+            long length = 0;
+            for (Object input : inputs) {
+                builder.setLength(0);
+                length += ObjectRenderer.processShape(input, builder).length();
+            }
+            return length;
+        });
+        bench.run("processShape/bytes", SIZE, () -> {
+            long length = 0;
+            for (Object input : inputs) {
+                length += renderer.processShape(input, buffer.clear()).position();
+            }
+            return length;
+        });
+    }
+    
+    /**
+     * The String processShape builds before printing it.
+     */
+    static String shapeLine(Object shape) {
+        return switch (shape) {
+            case Point(int x, int y) -> "Point: x=" + x + ", y=" + y;
+            case Circle(Point(int cx, int cy), double radius) ->
+                "Circle: center=(" + cx + "," + cy + "), radius=" + radius;
+            case Rectangle(Point(int x1, int y1), Point(int x2, int y2)) -> {
+                int width = Math.abs(x2 - x1);
+                int height = Math.abs(y2 - y1);
+                yield "Rectangle: topLeft=(" + x1 + "," + y1 + 
+                        "), bottomRight=(" + x2 + "," + y2 + 
+                        "), size=" + width + "x" + height;
+            }
+            case Person(String name, int age) -> "Person: " + name + ", age " + age;
+            case null -> "Shape is null";
+            default -> "Unknown shape: " + shape.getClass().getSimpleName();
+        };
+    }
+    
+    /**
+     * Checks that every rendering path reproduces the original text exactly.
+     */
+    static void verify(Object[] inputs) {
+        ObjectRenderer renderer = new ObjectRenderer();
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        try {
+            for (Object input : inputs) {
+                String[] expected = {
+                    PatternMatchingSwitchDemo.describeObject(input),
+                    PatternMatchingSwitchDemo.describePerson(input),
+                    shapeLine(input)
+                };
+                String[] built = {
+                    ObjectRenderer.describeObject(input, new StringBuilder()).toString(),
+                    ObjectRenderer.describePerson(input, new StringBuilder()).toString(),
+                    ObjectRenderer.processShape(input, new StringBuilder()).toString()
+                };
+                String[] written = {
+                    renderer.describeObject(input, new StringWriter()).toString(),
+                    renderer.describePerson(input, new StringWriter()).toString(),
+                    renderer.processShape(input, new StringWriter()).toString()
+                };
+                byte[][] encoded = {
+                    bytes(renderer.describeObject(input, buffer.clear()).flip()),
+                    bytes(renderer.describePerson(input, buffer.clear()).flip()),
+                    bytes(renderer.processShape(input, buffer.clear()).flip())
+                };
+                for (int i = 0; i < expected.length; i++) {
+                    if (!expected[i].equals(built[i]) || !expected[i].equals(written[i])
+                            || !Arrays.equals(expected[i].getBytes(StandardCharsets.UTF_8), encoded[i])) {
+                        throw new IllegalStateException("Rendering differs for " + input + ": " + expected[i]);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+    
+    private static Object[] inputs(Random random) {
+        Object[] inputs = new Object[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            int value = random.nextInt(200) - 20;
+            inputs[i] = switch (random.nextInt(9)) {
+                case 0 -> new Point(value, random.nextInt(100));
+                case 1 -> new Circle(new Point(value, value / 2), random.nextDouble() * 20);
+                case 2 -> new Rectangle(new Point(value, 0), new Point(random.nextInt(100), value));
+                case 3 -> new Person(i % 7 == 0 ? "Zoë" : "Person" + i, random.nextInt(90));
+                case 4 -> value;
+                case 5 -> i % 2 == 0 ? "short" : "a much longer string " + i;
+                case 6 -> (double) value;
+                case 7 -> null;
+                default -> new Person(null, value);
+            };
+        }
+        return inputs;
+    }
+}
@@ -0,0 +1,226 @@
+package patternmatching;
+
+import bench.Bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Compares lists of Point, Circle and Rectangle records with PointArray, CircleArray and
+ * RectangleArray, first by heap used per element and then by the speed of the bulk
+ * kernels. Footprint is the allocation of building SIZE elements, read from the
+ * per-thread allocation counter, so it reflects this JVM's object layout (compressed
+ * oops or not). Before measuring, the array kernels are checked against calculateArea
+ * and bounds computed from the records.
+ * Run one case per JVM, e.g. {@code java patternmatching.ShapeArrayBenchmark area/circle/array}.
+ */
+public class ShapeArrayBenchmark {
+    
+    private static final int SIZE = 1 << 16;
+    private static final int FOOTPRINT_SIZE = 1 << 20;
+    
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            printFootprint();
+        }
+        
+        Random random = new Random(42);
+        List<Point> pointList = new ArrayList<>(points(SIZE, random));
+        List<Circle> circleList = circles(SIZE, random);
+        List<Rectangle> rectangleList = rectangles(SIZE, random);
+        PointArray pointArray = PointArray.of(pointList);
+        CircleArray circleArray = CircleArray.of(circleList);
+        RectangleArray rectangleArray = RectangleArray.of(rectangleList);
+        verify(pointList, circleList, rectangleList);
+        
+        Bench bench = new Bench(args);
+        double[] areas = new double[SIZE];
+        
+        bench.run("area/circle/list", SIZE, () -> {
+            double sum = 0;
+            for (Circle circle : circleList) {
+                sum += PatternMatchingSwitchDemo.calculateArea(circle);
+            }
+            return sum;
+        });
+        bench.run("area/circle/array", SIZE, circleArray::totalArea);
+        bench.run("area/circle/cursor", SIZE, () -> {
+            double sum = 0;
+            CircleArray.Cursor circle = circleArray.cursor();
+            while (circle.next()) {
+                sum += circle.area();
+            }
+            return sum;
+        });
+        bench.run("area/rectangle/list", SIZE, () -> {
+            double sum = 0;
+            for (Rectangle rectangle : rectangleList) {
+                sum += PatternMatchingSwitchDemo.calculateArea(rectangle);
+            }
+            return sum;
+        });
+        bench.run("area/rectangle/array", SIZE, () -> rectangleArray.areas(areas)[SIZE - 1]);
+        bench.run("bounds/point/list", SIZE, () -> {
+            int maxX = Integer.MIN_VALUE;
+            for (Point point : pointList) {
+                maxX = Math.max(maxX, point.x());
+            }
+            return maxX;
+        });
+        bench.run("bounds/point/array", SIZE, () -> pointArray.bounds().maxX());
+        bench.run("bounds/rectangle/list", SIZE, () -> {
+            int maxX = Integer.MIN_VALUE;
+            for (Rectangle rectangle : rectangleList) {
+                maxX = Math.max(maxX, Math.max(rectangle.topLeft().x(), rectangle.bottomRight().x()));
+            }
+            return maxX;
+        });
+        bench.run("bounds/rectangle/array", SIZE, () -> rectangleArray.bounds().maxX());
+        bench.run("translate/point/list", SIZE, () -> {
+            pointList.replaceAll(p -> new Point(p.x() + 1, p.y() - 1));
+            return pointList.get(0).x();
+        });
+        bench.run("translate/point/array", SIZE, () -> {
+            pointArray.translate(1, -1);
+            return pointArray.x(0);
+        });
+    }
+    
+    /**
+     * Prints the bytes per element of each representation, with spare capacity trimmed.
+     */
+    private static void printFootprint() {
+        System.out.printf("%-28s %10s%n", "Footprint (" + FOOTPRINT_SIZE + " elements)", "B/element");
+        footprint("List<Point>", () -> points(FOOTPRINT_SIZE, new Random(1)));
+        footprint("PointArray", () -> {
+            PointArray array = new PointArray(FOOTPRINT_SIZE);
+            for (int i = 0; i < FOOTPRINT_SIZE; i++) {
+                array.add(i, -i);
+            }
+            return array;
+        });
+        footprint("List<Circle>", () -> circles(FOOTPRINT_SIZE, new Random(1)));
+        footprint("CircleArray", () -> {
+            CircleArray array = new CircleArray(FOOTPRINT_SIZE);
+            for (int i = 0; i < FOOTPRINT_SIZE; i++) {
+                array.add(i, -i, i * 0.5);
+            }
+            return array;
+        });
+        footprint("List<Rectangle>", () -> rectangles(FOOTPRINT_SIZE, new Random(1)));
+        footprint("RectangleArray", () -> {
+            RectangleArray array = new RectangleArray(FOOTPRINT_SIZE);
+            for (int i = 0; i < FOOTPRINT_SIZE; i++) {
+                array.add(i, -i, i + 7, 3 - i);
+            }
+            return array;
+        });
+        System.out.println();
+    }
+    
+    private static void footprint(String name, Supplier<Object> build) {
+        long thread = Thread.currentThread().threadId();
+        long before = THREADS.getThreadAllocatedBytes(thread);
+        Object built = build.get();
+        long bytes = THREADS.getThreadAllocatedBytes(thread) - before;
+        System.out.printf("%-28s %10.1f%n", name, (double) bytes / FOOTPRINT_SIZE);
+        if (built == null) {
+            throw new AssertionError();
+        }
+    }
+    
+    private static void verify(List<Point> points, List<Circle> circles, List<Rectangle> rectangles) {
+        PointArray pointArray = PointArray.of(points);
+        CircleArray circleArray = CircleArray.of(circles);
+        RectangleArray rectangleArray = RectangleArray.of(rectangles);
+        double[] circleAreas = circleArray.areas(new double[circles.size()]);
+        double[] rectangleAreas = rectangleArray.areas(new double[rectangles.size()]);
+        double circleTotal = 0;
+        double rectangleTotal = 0;
+        for (int i = 0; i < points.size(); i++) {
+            double circleArea = PatternMatchingSwitchDemo.calculateArea(circles.get(i));
+            double rectangleArea = PatternMatchingSwitchDemo.calculateArea(rectangles.get(i));
+            circleTotal += circleArea;
+            rectangleTotal += rectangleArea;
+            check(circleAreas[i] == circleArea && rectangleAreas[i] == rectangleArea, "area of element " + i);
+            check(pointArray.get(i).equals(points.get(i)) && circleArray.get(i).equals(circles.get(i))
+                    && rectangleArray.get(i).equals(rectangles.get(i)), "round trip of element " + i);
+        }
+        check(circleArray.totalArea() == circleTotal && rectangleArray.totalArea() == rectangleTotal, "total area");
+        check(pointArray.bounds().equals(listBounds(points))
+                && circleArray.bounds().equals(listBounds(circles))
+                && rectangleArray.bounds().equals(listBounds(rectangles)), "bounds");
+        
+        PointArray moved = PointArray.of(points);
+        moved.translate(5, -3);
+        moved.scale(1.5);
+        PointArray.Cursor point = moved.cursor();
+        while (point.next()) {
+            Point original = points.get(point.index());
+            check(point.x() == (int) Math.round((original.x() + 5) * 1.5)
+                    && point.y() == (int) Math.round((original.y() - 3) * 1.5), "translate and scale");
+        }
+        
+        Point far = new Point(2_000_000_000, -2_000_000_000);
+        Point saturated = new Point(Integer.MAX_VALUE, Integer.MIN_VALUE);
+        PointArray farPoints = PointArray.of(far);
+        CircleArray farCircles = CircleArray.of(new Circle(far, 1));
+        RectangleArray farRectangles = RectangleArray.of(new Rectangle(far, new Point(0, 0)));
+        farPoints.scale(2);
+        farCircles.scale(2);
+        farRectangles.scale(2);
+        check(farPoints.get(0).equals(saturated) && farCircles.get(0).center().equals(saturated)
+                && farRectangles.get(0).topLeft().equals(saturated), "scale saturating at the int range");
+    }
+    
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new AssertionError("Shape arrays disagree with the records: " + what);
+        }
+    }
+    
+    /**
+     * Bounds of records through the box computation the spatial indexes use.
+     */
+    private static Bounds listBounds(List<?> shapes) {
+        Geometry.Boxes boxes = new Geometry.Boxes(shapes.toArray());
+        Bounds bounds = Bounds.EMPTY;
+        for (int i = 0; i < boxes.size(); i++) {
+            bounds = bounds.union(new Bounds(boxes.minX[i], boxes.minY[i], boxes.maxX[i], boxes.maxY[i]));
+        }
+        return bounds;
+    }
+    
+    private static List<Point> points(int size, Random random) {
+        List<Point> points = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            points.add(new Point(random.nextInt(-10_000, 10_000), random.nextInt(-10_000, 10_000)));
+        }
+        return points;
+    }
+    
+    private static List<Circle> circles(int size, Random random) {
+        List<Circle> circles = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            circles.add(new Circle(new Point(random.nextInt(-10_000, 10_000), random.nextInt(-10_000, 10_000)),
+                    random.nextDouble(0.5, 100)));
+        }
+        return circles;
+    }
+    
+    private static List<Rectangle> rectangles(int size, Random random) {
+        List<Rectangle> rectangles = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rectangles.add(new Rectangle(
+                    new Point(random.nextInt(-10_000, 10_000), random.nextInt(-10_000, 10_000)),
+                    new Point(random.nextInt(-10_000, 10_000), random.nextInt(-10_000, 10_000))));
+        }
+        return rectangles;
+    }
+}
@@ -0,0 +1,59 @@
+package patternmatching;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Read-only spatial index over Point, Circle and Rectangle records.
+ * Circles and rectangles are matched by their exact geometry, not just their bounding boxes.
+ * <p>
+ * Two implementations are permitted: a bulk-loaded R-tree, which adapts to clustered
+ * data and shapes of very different sizes, and a uniform grid, which is cheaper to
+ * build and query when shapes are spread evenly. {@link #of(Collection)} picks one
+ * by looking at how evenly the shapes fill a grid.
+ */
+public sealed interface SpatialIndex permits RTree, GridIndex {
+    
+    /**
+     * @return the shapes containing the point
+     */
+    List<Object> containing(Point point);
+    
+    /**
+     * @return the shapes intersecting the rectangle
+     */
+    List<Object> intersecting(Rectangle rectangle);
+    
+    /**
+     * @return up to k shapes ordered by distance from the point, nearest first;
+     *         shapes containing the point have distance zero
+     */
+    List<Object> nearest(Point point, int k);
+    
+    /**
+     * @return the number of indexed shapes
+     */
+    int size();
+    
+    /**
+     * Builds the index best suited to the data: a grid if the shapes fill it evenly, an R-tree otherwise.
+     */
+    static SpatialIndex of(Collection<?> shapes) {
+        GridIndex grid = new GridIndex(new Geometry.Boxes(shapes.toArray()));
+        return grid.isBalanced() ? grid : new RTree(grid.boxes());
+    }
+    
+    /**
+     * Builds a bulk-loaded (sort-tile-recursive) R-tree.
+     */
+    static SpatialIndex rtree(Collection<?> shapes) {
+        return new RTree(new Geometry.Boxes(shapes.toArray()));
+    }
+    
+    /**
+     * Builds a uniform grid.
+     */
+    static SpatialIndex grid(Collection<?> shapes) {
+        return new GridIndex(new Geometry.Boxes(shapes.toArray()));
+    }
+}
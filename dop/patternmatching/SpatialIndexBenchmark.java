@@ -0,0 +1,193 @@
+package patternmatching;
+
+import bench.Bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares containing() on the grid and the R-tree with a scan that tests every shape.
+ * One operation is one query point.
+ * <p>
+ * Before measuring, both indexes must return exactly the shapes the scan finds for
+ * containing(), intersecting() and the distances of nearest(), on uniform, clustered and
+ * far-out inputs. The query points include every shape's extreme coordinates, so points
+ * on the max edge of the grid are covered.
+ * Run one case per JVM, e.g. {@code java patternmatching.SpatialIndexBenchmark grid/100000}.
+ */
+public class SpatialIndexBenchmark {
+    
+    private static final int[] SIZES = {1_000, 10_000, 100_000, 1_000_000};
+    private static final int QUERIES = 1_000;
+    private static final int SCAN_LIMIT = 100_000;
+    
+    public static void main(String[] args) {
+        verify();
+        System.out.println("Verified against the scan\n");
+        
+        Bench bench = new Bench(args);
+        for (int size : SIZES) {
+            Random random = new Random(size);
+            List<Object> shapes = shapes(size, random, (int) Math.sqrt(size) * 30, 0);
+            Point[] queries = randomPoints(QUERIES, random, (int) Math.sqrt(size) * 30, 0);
+            SpatialIndex grid = SpatialIndex.grid(shapes);
+            SpatialIndex rtree = SpatialIndex.rtree(shapes);
+            if (size <= SCAN_LIMIT) {
+                bench.run("scan/" + size, queries.length, () -> query(queries, point -> scanContaining(shapes, point)));
+            }
+            bench.run("grid/" + size, queries.length, () -> query(queries, grid::containing));
+            bench.run("rtree/" + size, queries.length, () -> query(queries, rtree::containing));
+        }
+    }
+    
+    private interface Query {
+        List<Object> run(Point point);
+    }
+    
+    private static long query(Point[] points, Query query) {
+        long found = 0;
+        for (Point point : points) {
+            found += query.run(point).size();
+        }
+        return found;
+    }
+    
+    private static List<Object> scanContaining(List<Object> shapes, Point point) {
+        List<Object> result = new ArrayList<>();
+        for (Object shape : shapes) {
+            if (Geometry.contains(shape, point.x(), point.y())) {
+                result.add(shape);
+            }
+        }
+        return result;
+    }
+    
+    private static List<Object> scanIntersecting(List<Object> shapes, double x1, double y1, double x2, double y2) {
+        List<Object> result = new ArrayList<>();
+        for (Object shape : shapes) {
+            if (Geometry.intersects(shape, x1, y1, x2, y2)) {
+                result.add(shape);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Circles, rectangles with corners in any order and a few points, spread over a square.
+     */
+    private static List<Object> shapes(int count, Random random, int side, int offset) {
+        List<Object> shapes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int x = offset + random.nextInt(side);
+            int y = offset + random.nextInt(side);
+            int kind = random.nextInt(10);
+            if (kind < 5) {
+                shapes.add(new Circle(new Point(x, y), 1 + random.nextInt(10) + random.nextDouble()));
+            } else if (kind < 9) {
+                shapes.add(new Rectangle(new Point(x, y), new Point(x - 20 + random.nextInt(41), y + random.nextInt(21))));
+            } else {
+                shapes.add(new Point(x, y));
+            }
+        }
+        return shapes;
+    }
+    
+    private static Point[] randomPoints(int count, Random random, int side, int offset) {
+        Point[] points = new Point[count];
+        for (int i = 0; i < count; i++) {
+            points[i] = new Point(offset + random.nextInt(side), offset + random.nextInt(side));
+        }
+        return points;
+    }
+    
+    /**
+     * @return the corners of every rectangle, every point and the extreme points of every circle
+     */
+    private static List<Point> extremes(List<Object> shapes) {
+        List<Point> points = new ArrayList<>();
+        for (Object shape : shapes) {
+            switch (shape) {
+                case Point point -> points.add(point);
+                case Rectangle(Point a, Point b) -> {
+                    points.add(a);
+                    points.add(b);
+                    points.add(new Point(a.x(), b.y()));
+                    points.add(new Point(b.x(), a.y()));
+                }
+                case Circle(Point(int x, int y), double radius) -> {
+                    int r = (int) Math.floor(radius);
+                    points.add(new Point(x + r, y));
+                    points.add(new Point(x, y + r));
+                    points.add(new Point(x - r, y));
+                    points.add(new Point(x, y - r));
+                }
+                default -> throw new IllegalArgumentException("Not a shape: " + shape);
+            }
+        }
+        return points;
+    }
+    
+    private static void verify() {
+        Random random = new Random(42);
+        List<List<Object>> inputs = new ArrayList<>(List.of(
+                List.of(),
+                shapes(5_000, random, 2_000, 0),
+                shapes(5_000, random, 200, 0),
+                shapes(5_000, random, 100_000, 2_000_000_000 - 100_000),
+                shapes(5_000, random, 1_000_000, -500_000)));
+        // Many small grids, so that some have a cell size that does not add up exactly to the max edge
+        for (int count = 10; count <= 400; count += 10) {
+            inputs.add(shapes(count, random, 100, 0));
+        }
+        for (List<Object> shapes : inputs) {
+            Map<Object, Integer> ids = new IdentityHashMap<>();
+            for (int i = 0; i < shapes.size(); i++) {
+                ids.put(shapes.get(i), i);
+            }
+            List<Point> points = extremes(shapes);
+            points.addAll(Arrays.asList(randomPoints(500, random, 3_000, -500)));
+            SpatialIndex[] indexes = {SpatialIndex.grid(shapes), SpatialIndex.rtree(shapes), SpatialIndex.of(shapes)};
+            for (SpatialIndex index : indexes) {
+                String name = index.getClass().getSimpleName();
+                for (Point point : points) {
+                    check(Arrays.equals(sorted(ids, index.containing(point)), sorted(ids, scanContaining(shapes, point))),
+                            name + ".containing(" + point + ")", shapes.size());
+                }
+                for (int q = 0; q < 200 && !points.isEmpty(); q++) {
+                    Point a = points.get(random.nextInt(points.size()));
+                    Point b = new Point(a.x() + random.nextInt(101) - 50, a.y() + random.nextInt(101) - 50);
+                    List<Object> expected = scanIntersecting(shapes, Math.min(a.x(), b.x()), Math.min(a.y(), b.y()),
+                            Math.max(a.x(), b.x()), Math.max(a.y(), b.y()));
+                    check(Arrays.equals(sorted(ids, index.intersecting(new Rectangle(a, b))), sorted(ids, expected)),
+                            name + ".intersecting(" + a + ", " + b + ")", shapes.size());
+                    check(Arrays.equals(distances(index.nearest(a, 10), a), nearestDistances(shapes, a, 10)),
+                            name + ".nearest(" + a + ")", shapes.size());
+                }
+            }
+        }
+    }
+    
+    private static int[] sorted(Map<Object, Integer> ids, List<Object> shapes) {
+        return shapes.stream().mapToInt(ids::get).sorted().toArray();
+    }
+    
+    private static double[] distances(List<Object> shapes, Point point) {
+        return shapes.stream().mapToDouble(shape -> Geometry.distance(shape, point.x(), point.y())).toArray();
+    }
+    
+    private static double[] nearestDistances(List<Object> shapes, Point point, int k) {
+        double[] all = distances(shapes, point);
+        Arrays.sort(all);
+        return Arrays.copyOf(all, Math.min(k, all.length));
+    }
+    
+    private static void check(boolean condition, String what, int size) {
+        if (!condition) {
+            throw new AssertionError("SpatialIndex disagrees with the scan: " + what + " on " + size + " shapes");
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package patternmatching;
+
+import bench.Bench;
+
+import java.util.Random;
+
+/**
+ * Compares TypeDispatcher with the language switch for the case lists of processNumber
+ * and describeObject. The number and describe-kind cases only find the case position,
+ * a switch returning constants against TypeDispatcher.indexOf, so the measurement is the
+ * dispatch itself; the describe cases also build the strings of describeObject.
+ * <p>
+ * SKEWED inputs are nine tenths Double, the last type case of processNumber; UNIFORM
+ * inputs spread evenly over the number types, String, Boolean, Character and null.
+ * Run one case per JVM, e.g. {@code java patternmatching.TypeDispatchBenchmark
+ * number/switch/uniform}, so that every case starts from a clean profile.
+ */
+public class TypeDispatchBenchmark {
+    
+    private static final int SIZE = 1024;
+    
+    public static void main(String[] args) {
+        Bench bench = new Bench(args);
+        
+        for (Mix mix : Mix.values()) {
+            Object[] inputs = mix.inputs(SIZE, new Random(42));
+            String suffix = "/" + mix.name().toLowerCase();
+            
+            bench.run("number/switch" + suffix, SIZE, () -> {
+                long sum = 0;
+                for (Object input : inputs) {
+                    sum += numberKind(input);
+                }
+                return sum;
+            });
+            bench.run("number/dispatcher" + suffix, SIZE, () -> {
+                long sum = 0;
+                for (Object input : inputs) {
+                    sum += ObjectDispatchers.NUMBER_MESSAGE.indexOf(input);
+                }
+                return sum;
+            });
+            bench.run("describe-kind/switch" + suffix, SIZE, () -> {
+                long sum = 0;
+                for (Object input : inputs) {
+                    sum += describeKind(input);
+                }
+                return sum;
+            });
+            bench.run("describe-kind/dispatcher" + suffix, SIZE, () -> {
+                long sum = 0;
+                for (Object input : inputs) {
+                    sum += ObjectDispatchers.DESCRIBE_OBJECT.indexOf(input);
+                }
+                return sum;
+            });
+            bench.run("describe/switch" + suffix, SIZE, () -> {
+                long length = 0;
+                for (Object input : inputs) {
+                    length += PatternMatchingSwitchDemo.describeObject(input).length();
+                }
+                return length;
+            });
+            bench.run("describe/dispatcher" + suffix, SIZE, () -> {
+                long length = 0;
+                for (Object input : inputs) {
+                    length += ObjectDispatchers.DESCRIBE_OBJECT.apply(input).length();
+                }
+                return length;
+            });
+        }
+    }
+    
+    /**
+     * The switch of processNumber, returning the position TypeDispatcher.indexOf reports.
+     */
+    static int numberKind(Object obj) {
+        return switch (obj) {
+            case Byte _ -> 0;
+            case Short _ -> 1;
+            case Integer _ -> 2;
+            case Long _ -> 3;
+            case Float _ -> 4;
+            case Double _ -> 5;
+            case null -> -1;
+            default -> 6;
+        };
+    }
+    
+    /**
+     * The switch of describeObject, returning the position TypeDispatcher.indexOf reports.
+     */
+    static int describeKind(Object obj) {
+        return switch (obj) {
+            case String s when s.length() > 10 -> 0;
+            case String _ -> 1;
+            case Integer i when i > 100 -> 2;
+            case Integer _ -> 3;
+            case null -> -1;
+            default -> 4;
+        };
+    }
+    
+    /**
+     * Input distributions.
+     */
+    enum Mix {
+        SKEWED, UNIFORM;
+        
+        Object[] inputs(int size, Random random) {
+            Object[] inputs = new Object[size];
+            for (int i = 0; i < size; i++) {
+                inputs[i] = this == SKEWED && random.nextInt(10) != 0 ? random.nextDouble() : any(random);
+            }
+            return inputs;
+        }
+        
+        private static Object any(Random random) {
+            int value = random.nextInt(200);
+            return switch (random.nextInt(10)) {
+                case 0 -> (byte) value;
+                case 1 -> (short) value;
+                case 2 -> value;
+                case 3 -> (long) value;
+                case 4 -> (float) value;
+                case 5 -> (double) value;
+                case 6 -> value % 2 == 0 ? "short" : "a string longer than ten";
+                case 7 -> value % 2 == 0;
+                case 8 -> (char) ('a' + value % 26);
+                default -> null;
+            };
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package patternmatching;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A type switch over Object compiled into a per-class dispatch table.
+ * <p>
+ * Cases are declared in the order a switch would list them, each with a type, an
+ * optional guard and a body. The first time a receiver class is seen, the cases whose
+ * type it matches are collected into an array, cut off after the first unguarded one,
+ * and cached in a ClassValue. Dispatching an object is then one ClassValue lookup and,
+ * for unguarded cases, one call, however many cases precede the match; a
+ * {@code typeSwitch} call site tests the case types one after the other.
+ * <p>
+ * Semantics follow the switch: guards run in case order and only for matching types,
+ * null goes to the null case (or throws NullPointerException without one), and anything
+ * unmatched goes to the default. A case that an earlier unguarded case always wins is
+ * rejected, as javac rejects dominated labels.
+ * <pre>
+ * TypeDispatcher&lt;String&gt; describe = TypeDispatcher.&lt;String&gt;builder()
+ *         .when(String.class, s -&gt; s.length() &gt; 10, s -&gt; "Long string")
+ *         .on(String.class, s -&gt; "String: " + s)
+ *         .onNull(() -&gt; "Null object")
+ *         .otherwise(obj -&gt; "Other");
+ * </pre>
+ */
+public final class TypeDispatcher<R> {
+    
+    private record Case<R>(Class<?> type, Predicate<Object> guard, Function<Object, R> body) { }
+    
+    private final Case<R>[] cases;
+    private final Supplier<? extends R> nullCase;
+    private final Function<Object, ? extends R> defaultCase;
+    private final ClassValue<int[]> table = new ClassValue<>() {
+        @Override
+        protected int[] computeValue(Class<?> type) {
+            return candidates(type);
+        }
+    };
+    
+    private TypeDispatcher(Case<R>[] cases, Supplier<? extends R> nullCase, Function<Object, ? extends R> defaultCase) {
+        this.cases = cases;
+        this.nullCase = nullCase;
+        this.defaultCase = defaultCase;
+    }
+    
+    /**
+     * @return a builder to which cases are added in switch order
+     */
+    public static <R> Builder<R> builder() {
+        return new Builder<>();
+    }
+    
+    /**
+     * @return the number of type cases, which is also the index of the default
+     */
+    public int caseCount() {
+        return cases.length;
+    }
+    
+    /**
+     * Finds the case that handles obj without running it, for callers that switch
+     * on the index themselves.
+     * @return the position of the first matching case in declaration order,
+     *         -1 for null, or caseCount() for the default
+     */
+    public int indexOf(Object obj) {
+        if (obj == null) {
+            return -1;
+        }
+        for (int index : table.get(obj.getClass())) {
+            Predicate<Object> guard = cases[index].guard();
+            if (guard == null || guard.test(obj)) {
+                return index;
+            }
+        }
+        return cases.length;
+    }
+    
+    /**
+     * Runs the body of the first case matching obj.
+     */
+    public R apply(Object obj) {
+        int index = indexOf(obj);
+        if (index < 0) {
+            if (nullCase == null) {
+                throw new NullPointerException("No null case");
+            }
+            return nullCase.get();
+        }
+        return index < cases.length ? cases[index].body().apply(obj) : defaultCase.apply(obj);
+    }
+    
+    /**
+     * @return the positions of the cases whose type matches, up to the first unguarded one
+     */
+    private int[] candidates(Class<?> type) {
+        int[] matching = new int[cases.length];
+        int count = 0;
+        for (int i = 0; i < cases.length; i++) {
+            if (cases[i].type().isAssignableFrom(type)) {
+                matching[count++] = i;
+                if (cases[i].guard() == null) {
+                    // Later cases can never be reached for this class
+                    break;
+                }
+            }
+        }
+        return Arrays.copyOf(matching, count);
+    }
+    
+    /**
+     * Collects cases in order; not thread-safe, but the built dispatcher is.
+     */
+    public static final class Builder<R> {
+        
+        private final List<Case<R>> cases = new ArrayList<>();
+        private Supplier<? extends R> nullCase;
+        
+        private Builder() {
+        }
+        
+        /**
+         * Adds {@code case T t -> body}.
+         */
+        public <T> Builder<R> on(Class<T> type, Function<? super T, ? extends R> body) {
+            return add(type, null, body);
+        }
+        
+        /**
+         * Adds {@code case T t when guard -> body}.
+         */
+        public <T> Builder<R> when(Class<T> type, Predicate<? super T> guard, Function<? super T, ? extends R> body) {
+            return add(type, Objects.requireNonNull(guard, "guard"), body);
+        }
+        
+        /**
+         * Adds {@code case null -> body}.
+         */
+        public Builder<R> onNull(Supplier<? extends R> body) {
+            nullCase = Objects.requireNonNull(body, "body");
+            return this;
+        }
+        
+        /**
+         * Adds {@code default -> body} and builds the dispatcher.
+         */
+        public TypeDispatcher<R> otherwise(Function<Object, ? extends R> body) {
+            @SuppressWarnings("unchecked")
+            Case<R>[] array = (Case<R>[]) cases.toArray(new Case<?>[0]);
+            return new TypeDispatcher<>(array, nullCase, Objects.requireNonNull(body, "body"));
+        }
+        
+        @SuppressWarnings("unchecked")
+        private <T> Builder<R> add(Class<T> type, Predicate<? super T> guard, Function<? super T, ? extends R> body) {
+            Objects.requireNonNull(type, "type");
+            Objects.requireNonNull(body, "body");
+            if (type.isPrimitive()) {
+                throw new IllegalArgumentException("Use the wrapper class instead of " + type);
+            }
+            for (Case<R> c : cases) {
+                if (c.guard() == null && c.type().isAssignableFrom(type)) {
+                    throw new IllegalArgumentException("Case " + type.getSimpleName()
+                            + " is dominated by the earlier case " + c.type().getSimpleName());
+                }
+            }
+            // The table only hands objects of the case's type to its guard and body
+            cases.add(new Case<>(type, (Predicate<Object>) guard, (Function<Object, R>) body));
+            return this;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package patternmatching;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * IntGuardClassifier kernel on the incubator Vector API: compares a full vector of ints
+ * against each guard per step and counts the lanes of the resulting masks. The tail
+ * shorter than a vector is left to the scalar kernel.
+ * Only loaded when jdk.incubator.vector is resolved.
+ */
+final class VectorGuardKernel implements IntGuardClassifier.Kernel {
+    
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    
+    private final IntGuardClassifier.Scalar tail = new IntGuardClassifier.Scalar();
+    
+    @Override
+    public long[] counts(int[] values, int from, int to) {
+        long large = 0;
+        long negative = 0;
+        long zero = 0;
+        long odd = 0;
+        int i = from;
+        for (; i + LANES <= to; i += LANES) {
+            IntVector vector = IntVector.fromArray(SPECIES, values, i);
+            VectorMask<Integer> isLarge = vector.compare(VectorOperators.GT, 100);
+            VectorMask<Integer> isPositive = vector.compare(VectorOperators.GT, 0);
+            large += isLarge.trueCount();
+            negative += vector.compare(VectorOperators.LT, 0).trueCount();
+            zero += vector.compare(VectorOperators.EQ, 0).trueCount();
+            odd += vector.and(1).compare(VectorOperators.NE, 0).and(isPositive).andNot(isLarge).trueCount();
+        }
+        long[] rest = tail.counts(values, i, to);
+        return new long[] {
+            large + rest[0],
+            negative + rest[1],
+            zero + rest[2],
+            (i - from) - large - negative - zero - odd + rest[3],
+            odd + rest[4]
+        };
+    }
+}
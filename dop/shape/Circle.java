@@ -4,6 +4,13 @@
 public record Circle(double radius) implements Shape {
     
     public Circle {
+        checkDimensions(radius);
+    }
+    
+    /**
+     * Validation shared by the constructor and decoders that do not build a record.
+     */
+    static void checkDimensions(double radius) {
         if (radius <= 0) {
             throw new IllegalArgumentException("Radius must be positive");
         }
@@ -4,6 +4,13 @@
 public record Rectangle(double width, double height) implements Shape {
     
     public Rectangle {
+        checkDimensions(width, height);
+    }
+    
+    /**
+     * Validation shared by the constructor and decoders that do not build a record.
+     */
+    static void checkDimensions(double width, double height) {
         if (width <= 0 || height <= 0) {
             throw new IllegalArgumentException("Width and height must be positive");
         }
@@ -1,8 +1,11 @@
+import java.io.Serializable;
+
 /**
  * Sealed interface for geometric shapes.
  * Only Circle, Rectangle, and Triangle are permitted to implement this interface.
+ * Being records, they deserialize through their canonical constructors and keep their checks.
  */
-public sealed interface Shape 
+public sealed interface Shape extends Serializable
     permits Circle, Rectangle, Triangle {
     
     /**
@@ -0,0 +1,266 @@
+import java.util.Objects;
+
+/**
+ * Columnar (struct-of-arrays) store for shapes.
+ * Each permitted subtype of Shape gets its own group of primitive double[] columns,
+ * so bulk operations run as tight loops over arrays instead of one virtual call per object.
+ * <p>
+ * Every element remembers its position in the original Shape[], so per-element results
+ * come back in the same order and toArray() reproduces the input.
+ * <p>
+ * When the jdk.incubator.vector module is resolved (--add-modules jdk.incubator.vector)
+ * the bulk operations use the Vector API, otherwise they fall back to scalar loops.
+ * Per-element results are identical to calling area() and perimeter() on the records.
+ */
+public final class ShapeBatch {
+    
+    private static final Kernels KERNELS = selectKernels();
+    
+    private final int size;
+    
+    private final double[] circleRadius;
+    private final int[] circlePos;
+    
+    private final double[] rectangleWidth;
+    private final double[] rectangleHeight;
+    private final int[] rectanglePos;
+    
+    private final double[] triangleA;
+    private final double[] triangleB;
+    private final double[] triangleC;
+    private final int[] trianglePos;
+    
+    private ShapeBatch(int size, int circles, int rectangles, int triangles) {
+        this.size = size;
+        this.circleRadius = new double[circles];
+        this.circlePos = new int[circles];
+        this.rectangleWidth = new double[rectangles];
+        this.rectangleHeight = new double[rectangles];
+        this.rectanglePos = new int[rectangles];
+        this.triangleA = new double[triangles];
+        this.triangleB = new double[triangles];
+        this.triangleC = new double[triangles];
+        this.trianglePos = new int[triangles];
+    }
+    
+    /**
+     * Copies the given shapes into a new columnar batch.
+     * @param shapes the shapes to store, must not contain null
+     * @return a batch holding the same shapes in the same order
+     */
+    public static ShapeBatch of(Shape... shapes) {
+        int circles = 0;
+        int rectangles = 0;
+        int triangles = 0;
+        for (Shape shape : shapes) {
+            switch (Objects.requireNonNull(shape, "shape")) {
+                case Circle c -> circles++;
+                case Rectangle r -> rectangles++;
+                case Triangle t -> triangles++;
+            }
+        }
+        
+        ShapeBatch batch = new ShapeBatch(shapes.length, circles, rectangles, triangles);
+        circles = 0;
+        rectangles = 0;
+        triangles = 0;
+        for (int i = 0; i < shapes.length; i++) {
+            switch (shapes[i]) {
+                case Circle c -> {
+                    batch.circleRadius[circles] = c.radius();
+                    batch.circlePos[circles++] = i;
+                }
+                case Rectangle r -> {
+                    batch.rectangleWidth[rectangles] = r.width();
+                    batch.rectangleHeight[rectangles] = r.height();
+                    batch.rectanglePos[rectangles++] = i;
+                }
+                case Triangle t -> {
+                    batch.triangleA[triangles] = t.sideA();
+                    batch.triangleB[triangles] = t.sideB();
+                    batch.triangleC[triangles] = t.sideC();
+                    batch.trianglePos[triangles++] = i;
+                }
+            }
+        }
+        return batch;
+    }
+    
+    /**
+     * Materializes the batch back into records, in the original order.
+     */
+    public Shape[] toArray() {
+        Shape[] shapes = new Shape[size];
+        for (int i = 0; i < circlePos.length; i++) {
+            shapes[circlePos[i]] = new Circle(circleRadius[i]);
+        }
+        for (int i = 0; i < rectanglePos.length; i++) {
+            shapes[rectanglePos[i]] = new Rectangle(rectangleWidth[i], rectangleHeight[i]);
+        }
+        for (int i = 0; i < trianglePos.length; i++) {
+            shapes[trianglePos[i]] = new Triangle(triangleA[i], triangleB[i], triangleC[i]);
+        }
+        return shapes;
+    }
+    
+    /**
+     * @return the number of shapes in the batch
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Writes the area of every shape into out, at the shape's original position.
+     * @param out destination array, at least size() long
+     */
+    public void areas(double[] out) {
+        checkOutput(out);
+        KERNELS.circleAreas(circleRadius, circlePos, out);
+        KERNELS.rectangleAreas(rectangleWidth, rectangleHeight, rectanglePos, out);
+        KERNELS.triangleAreas(triangleA, triangleB, triangleC, trianglePos, out);
+    }
+    
+    /**
+     * Writes the perimeter of every shape into out, at the shape's original position.
+     * @param out destination array, at least size() long
+     */
+    public void perimeters(double[] out) {
+        checkOutput(out);
+        KERNELS.circlePerimeters(circleRadius, circlePos, out);
+        KERNELS.rectanglePerimeters(rectangleWidth, rectangleHeight, rectanglePos, out);
+        KERNELS.trianglePerimeters(triangleA, triangleB, triangleC, trianglePos, out);
+    }
+    
+    /**
+     * Sums the areas of all shapes.
+     * The vectorized path adds in lane order, so the last bits may differ
+     * from a plain left-to-right loop over area().
+     */
+    public double totalArea() {
+        return KERNELS.circleAreaSum(circleRadius)
+                + KERNELS.rectangleAreaSum(rectangleWidth, rectangleHeight)
+                + KERNELS.triangleAreaSum(triangleA, triangleB, triangleC);
+    }
+    
+    /**
+     * @return true if bulk operations run on the incubator Vector API
+     */
+    public static boolean isVectorized() {
+        return !(KERNELS instanceof ScalarKernels);
+    }
+    
+    private void checkOutput(double[] out) {
+        if (out.length < size) {
+            throw new IllegalArgumentException("Output array too small: " + out.length + " < " + size);
+        }
+    }
+    
+    private static Kernels selectKernels() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return new VectorShapeKernels();
+            } catch (LinkageError e) {
+                // Module resolved but unusable on this VM, use the scalar loops
+            }
+        }
+        return new ScalarKernels();
+    }
+    
+    /**
+     * Bulk kernels over one column group. Per-element results are scattered to out[pos[i]].
+     */
+    interface Kernels {
+        void circleAreas(double[] radius, int[] pos, double[] out);
+        void circlePerimeters(double[] radius, int[] pos, double[] out);
+        double circleAreaSum(double[] radius);
+        
+        void rectangleAreas(double[] width, double[] height, int[] pos, double[] out);
+        void rectanglePerimeters(double[] width, double[] height, int[] pos, double[] out);
+        double rectangleAreaSum(double[] width, double[] height);
+        
+        void triangleAreas(double[] a, double[] b, double[] c, int[] pos, double[] out);
+        void trianglePerimeters(double[] a, double[] b, double[] c, int[] pos, double[] out);
+        double triangleAreaSum(double[] a, double[] b, double[] c);
+    }
+    
+    /**
+     * Plain loops using exactly the same formulas as the records.
+     */
+    static final class ScalarKernels implements Kernels {
+        
+        @Override
+        public void circleAreas(double[] radius, int[] pos, double[] out) {
+            for (int i = 0; i < radius.length; i++) {
+                out[pos[i]] = Math.PI * radius[i] * radius[i];
+            }
+        }
+        
+        @Override
+        public void circlePerimeters(double[] radius, int[] pos, double[] out) {
+            for (int i = 0; i < radius.length; i++) {
+                out[pos[i]] = 2 * Math.PI * radius[i];
+            }
+        }
+        
+        @Override
+        public double circleAreaSum(double[] radius) {
+            double sum = 0;
+            for (double r : radius) {
+                sum += Math.PI * r * r;
+            }
+            return sum;
+        }
+        
+        @Override
+        public void rectangleAreas(double[] width, double[] height, int[] pos, double[] out) {
+            for (int i = 0; i < width.length; i++) {
+                out[pos[i]] = width[i] * height[i];
+            }
+        }
+        
+        @Override
+        public void rectanglePerimeters(double[] width, double[] height, int[] pos, double[] out) {
+            for (int i = 0; i < width.length; i++) {
+                out[pos[i]] = 2 * (width[i] + height[i]);
+            }
+        }
+        
+        @Override
+        public double rectangleAreaSum(double[] width, double[] height) {
+            double sum = 0;
+            for (int i = 0; i < width.length; i++) {
+                sum += width[i] * height[i];
+            }
+            return sum;
+        }
+        
+        @Override
+        public void triangleAreas(double[] a, double[] b, double[] c, int[] pos, double[] out) {
+            for (int i = 0; i < a.length; i++) {
+                out[pos[i]] = heron(a[i], b[i], c[i]);
+            }
+        }
+        
+        @Override
+        public void trianglePerimeters(double[] a, double[] b, double[] c, int[] pos, double[] out) {
+            for (int i = 0; i < a.length; i++) {
+                out[pos[i]] = a[i] + b[i] + c[i];
+            }
+        }
+        
+        @Override
+        public double triangleAreaSum(double[] a, double[] b, double[] c) {
+            double sum = 0;
+            for (int i = 0; i < a.length; i++) {
+                sum += heron(a[i], b[i], c[i]);
+            }
+            return sum;
+        }
+        
+        static double heron(double a, double b, double c) {
+            double s = (a + b + c) / 2;
+            return Math.sqrt(s * (s - a) * (s - b) * (s - c));
+        }
+    }
+}
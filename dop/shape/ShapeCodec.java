@@ -0,0 +1,106 @@
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary encoding of shapes: one tag byte for the permitted subtype
+ * followed by its dimensions as 8-byte doubles in ByteBuffer's default (big-endian) order.
+ * <pre>
+ * Circle     9 bytes   tag=1 radius
+ * Rectangle 17 bytes   tag=2 width height
+ * Triangle  25 bytes   tag=3 sideA sideB sideC
+ * </pre>
+ * Tags are the same as in ShapeSegment. Decoded values go through the records'
+ * constructor checks, also on the visitor path that builds no record.
+ */
+public final class ShapeCodec {
+    
+    /**
+     * Size of the largest encoded shape.
+     */
+    public static final int MAX_RECORD_SIZE = 1 + 3 * Double.BYTES;
+    
+    private ShapeCodec() {
+    }
+    
+    /**
+     * Receives decoded dimensions without a record being allocated.
+     */
+    public interface Visitor {
+        void circle(double radius);
+        
+        void rectangle(double width, double height);
+        
+        void triangle(double sideA, double sideB, double sideC);
+    }
+    
+    /**
+     * @return the encoded size of a shape with the given tag
+     * @throws IllegalArgumentException if the tag is unknown
+     */
+    public static int recordSize(byte tag) {
+        return switch (tag) {
+            case ShapeSegment.CIRCLE -> 1 + Double.BYTES;
+            case ShapeSegment.RECTANGLE -> 1 + 2 * Double.BYTES;
+            case ShapeSegment.TRIANGLE -> 1 + 3 * Double.BYTES;
+            default -> throw new IllegalArgumentException("Unknown shape tag " + tag);
+        };
+    }
+    
+    /**
+     * Writes one shape at the buffer's position.
+     * @throws java.nio.BufferOverflowException if fewer than MAX_RECORD_SIZE bytes may be needed and are missing
+     */
+    public static void encode(Shape shape, ByteBuffer buffer) {
+        switch (shape) {
+            case Circle c -> buffer.put(ShapeSegment.CIRCLE).putDouble(c.radius());
+            case Rectangle r -> buffer.put(ShapeSegment.RECTANGLE).putDouble(r.width()).putDouble(r.height());
+            case Triangle t -> buffer.put(ShapeSegment.TRIANGLE)
+                    .putDouble(t.sideA()).putDouble(t.sideB()).putDouble(t.sideC());
+        }
+    }
+    
+    /**
+     * Reads one shape at the buffer's position as a record.
+     * @throws BufferUnderflowException if the record is incomplete
+     * @throws IllegalArgumentException if the tag is unknown or the dimensions are invalid
+     */
+    public static Shape decode(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        return switch (tag) {
+            case ShapeSegment.CIRCLE -> new Circle(buffer.getDouble());
+            case ShapeSegment.RECTANGLE -> new Rectangle(buffer.getDouble(), buffer.getDouble());
+            case ShapeSegment.TRIANGLE -> new Triangle(buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+            default -> throw new IllegalArgumentException("Unknown shape tag " + tag);
+        };
+    }
+    
+    /**
+     * Reads one shape at the buffer's position and passes its dimensions to the visitor.
+     * @throws BufferUnderflowException if the record is incomplete
+     * @throws IllegalArgumentException if the tag is unknown or the dimensions are invalid
+     */
+    public static void decode(ByteBuffer buffer, Visitor visitor) {
+        byte tag = buffer.get();
+        switch (tag) {
+            case ShapeSegment.CIRCLE -> {
+                double radius = buffer.getDouble();
+                Circle.checkDimensions(radius);
+                visitor.circle(radius);
+            }
+            case ShapeSegment.RECTANGLE -> {
+                double width = buffer.getDouble();
+                double height = buffer.getDouble();
+                Rectangle.checkDimensions(width, height);
+                visitor.rectangle(width, height);
+            }
+            case ShapeSegment.TRIANGLE -> {
+                double a = buffer.getDouble();
+                double b = buffer.getDouble();
+                double c = buffer.getDouble();
+                Triangle.checkDimensions(a, b, c);
+                visitor.triangle(a, b, c);
+            }
+            default -> throw new IllegalArgumentException("Unknown shape tag " + tag);
+        }
+    }
+}
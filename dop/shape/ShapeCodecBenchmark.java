@@ -0,0 +1,128 @@
+import bench.Bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Compares ShapeCodec with Java serialization (ObjectOutputStream / ObjectInputStream)
+ * for encoding and decoding an array of shapes, and prints the encoded sizes.
+ * The visitor decode reuses one buffer and should report close to zero bytes per op.
+ */
+public class ShapeCodecBenchmark {
+    
+    private static final int SIZE = 10_000;
+    
+    public static void main(String[] args) throws IOException {
+        Shape[] shapes = shapes(SIZE, new Random(42));
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE * ShapeCodec.MAX_RECORD_SIZE);
+        for (Shape shape : shapes) {
+            ShapeCodec.encode(shape, buffer);
+        }
+        int codecSize = buffer.position();
+        byte[] serialized = serialize(shapes);
+        System.out.printf("Encoded size: codec %d bytes, serialization %d bytes%n%n", codecSize, serialized.length);
+        
+        Bench bench = new Bench(args);
+        
+        bench.run("codec/encode", SIZE, () -> {
+            buffer.clear();
+            for (Shape shape : shapes) {
+                ShapeCodec.encode(shape, buffer);
+            }
+            return buffer.position();
+        });
+        
+        bench.run("codec/decode-records", SIZE, () -> {
+            buffer.flip();
+            double sum = 0;
+            while (buffer.hasRemaining()) {
+                sum += ShapeCodec.decode(buffer).area();
+            }
+            buffer.position(buffer.limit());
+            return sum;
+        });
+        
+        AreaSum areaSum = new AreaSum();
+        bench.run("codec/decode-visitor", SIZE, () -> {
+            buffer.flip();
+            areaSum.sum = 0;
+            while (buffer.hasRemaining()) {
+                ShapeCodec.decode(buffer, areaSum);
+            }
+            buffer.position(buffer.limit());
+            return areaSum.sum;
+        });
+        
+        bench.run("serialization/encode", SIZE, () -> serialize(shapes).length);
+        
+        bench.run("serialization/decode", SIZE, () -> {
+            double sum = 0;
+            for (Shape shape : deserialize(serialized)) {
+                sum += shape.area();
+            }
+            return sum;
+        });
+    }
+    
+    private static byte[] serialize(Shape[] shapes) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(shapes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    private static Shape[] deserialize(byte[] bytes) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (Shape[]) in.readObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static Shape[] shapes(int size, Random random) {
+        Shape[] shapes = new Shape[size];
+        for (int i = 0; i < size; i++) {
+            double d = 1 + random.nextDouble();
+            shapes[i] = switch (random.nextInt(3)) {
+                case 0 -> new Circle(d);
+                case 1 -> new Rectangle(d, d + 1);
+                default -> new Triangle(d + 2, d + 3, d + 4);
+            };
+        }
+        return shapes;
+    }
+    
+    /**
+     * Sums areas straight from decoded dimensions.
+     */
+    private static final class AreaSum implements ShapeCodec.Visitor {
+        double sum;
+        
+        @Override
+        public void circle(double radius) {
+            sum += Math.PI * radius * radius;
+        }
+        
+        @Override
+        public void rectangle(double width, double height) {
+            sum += width * height;
+        }
+        
+        @Override
+        public void triangle(double sideA, double sideB, double sideC) {
+            double s = (sideA + sideB + sideC) / 2;
+            sum += Math.sqrt(s * (s - sideA) * (s - sideB) * (s - sideC));
+        }
+    }
+}
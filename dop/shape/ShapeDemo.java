@@ -1,9 +1,15 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Client class demonstrating the use of sealed classes with records.
  */
 public class ShapeDemo {
     
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         System.out.println("=== Sealed Classes with Records Demo ===\n");
         
         // Create different shapes using records
@@ -24,6 +30,38 @@ public class ShapeDemo {
             String shapeType = getShapeType(shape);
             System.out.println("Shape type: " + shapeType);
         }
+        
+        // Same shapes stored column-wise for bulk processing
+        System.out.println("\n=== Columnar ShapeBatch ===");
+        ShapeBatch batch = ShapeBatch.of(shapes);
+        double[] areas = new double[batch.size()];
+        batch.areas(areas);
+        for (int i = 0; i < areas.length; i++) {
+            System.out.printf("%s - Area: %.2f%n", getShapeType(shapes[i]), areas[i]);
+        }
+        System.out.printf("Total area: %.2f (vectorized: %b)%n", batch.totalArea(), ShapeBatch.isVectorized());
+        
+        // Aggregate statistics, usable from sequential and parallel streams
+        System.out.println("\n=== ShapeStatistics ===");
+        ShapeStatistics stats = Arrays.stream(shapes).parallel().collect(ShapeStatistics.collector());
+        System.out.println("All shapes: " + stats.total());
+        System.out.println("Circles: " + stats.of(Circle.class));
+        
+        // Shapes parsed from a text file, invalid lines reported instead of failing
+        System.out.println("\n=== ShapeIngest ===");
+        Path file = Files.createTempFile("shapes", ".txt");
+        try {
+            Files.write(file, List.of("circle 5.0", "rect 4 6", "tri 3 4 5", "", "# comment",
+                    "circle -1", "rect 4", "hexagon 2", "tri 1 1 5"));
+            ShapeIngest.Result result = ShapeIngest.ingest(file);
+            System.out.println("Lines: " + result.lines() + ", invalid: " + result.invalidLines());
+            System.out.println("All shapes: " + result.statistics().total());
+            for (ShapeIngest.InvalidLine line : result.invalid()) {
+                System.out.println("Line " + line.line() + " '" + line.text() + "': " + line.reason());
+            }
+        } finally {
+            Files.delete(file);
+        }
     }
     
     /**
@@ -46,7 +84,7 @@ public class ShapeDemo {
      * Demonstrates exhaustiveness checking with switch expressions.
      * The compiler ensures all permitted types are handled.
      */
-    private static String getShapeType(Shape shape) {
+    static String getShapeType(Shape shape) {
         return switch (shape) {
             case Circle c -> "Circle with radius " + c.radius();
             case Rectangle r -> "Rectangle " + r.width() + "x" + r.height();
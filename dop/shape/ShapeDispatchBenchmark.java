@@ -0,0 +1,111 @@
+import bench.Bench;
+
+import java.util.Random;
+
+/**
+ * Compares the dispatch styles used in ShapeDemo over arrays of shapes:
+ * the instanceof chain of printShapeInfo, the exhaustive type switch of getShapeType
+ * and a plain virtual Shape.area() call.
+ * <p>
+ * Each strategy runs over a monomorphic (circles only), bimorphic (circles and rectangles)
+ * and megamorphic (all three permitted types) mix. Run one case per JVM, e.g.
+ * {@code java ShapeDispatchBenchmark switch/mega}, to keep call-site profiles from
+ * leaking between cases.
+ */
+public class ShapeDispatchBenchmark {
+    
+    private static final int SIZE = 1024;
+    
+    public static void main(String[] args) {
+        Bench bench = new Bench(args);
+        
+        for (Mix mix : Mix.values()) {
+            Shape[] shapes = mix.shapes(SIZE, new Random(42));
+            String suffix = "/" + mix.name().toLowerCase();
+            
+            bench.run("instanceof" + suffix, SIZE, () -> {
+                double sum = 0;
+                for (Shape shape : shapes) {
+                    sum += areaByInstanceof(shape);
+                }
+                return sum;
+            });
+            
+            bench.run("switch" + suffix, SIZE, () -> {
+                double sum = 0;
+                for (Shape shape : shapes) {
+                    sum += areaBySwitch(shape);
+                }
+                return sum;
+            });
+            
+            bench.run("virtual" + suffix, SIZE, () -> {
+                double sum = 0;
+                for (Shape shape : shapes) {
+                    sum += shape.area();
+                }
+                return sum;
+            });
+            
+            // The real getShapeType, including its string concatenation
+            bench.run("getShapeType" + suffix, SIZE, () -> {
+                int length = 0;
+                for (Shape shape : shapes) {
+                    length += ShapeDemo.getShapeType(shape).length();
+                }
+                return length;
+            });
+        }
+    }
+    
+    /**
+     * Same instanceof chain as ShapeDemo.printShapeInfo, without the printing.
+     */
+    static double areaByInstanceof(Shape shape) {
+        if (shape instanceof Circle c) {
+            return Math.PI * c.radius() * c.radius();
+        } else if (shape instanceof Rectangle r) {
+            return r.width() * r.height();
+        } else if (shape instanceof Triangle t) {
+            return t.area();
+        }
+        return 0;
+    }
+    
+    /**
+     * Same exhaustive switch as ShapeDemo.getShapeType, computing the area instead of a label.
+     */
+    static double areaBySwitch(Shape shape) {
+        return switch (shape) {
+            case Circle c -> Math.PI * c.radius() * c.radius();
+            case Rectangle r -> r.width() * r.height();
+            case Triangle t -> t.area();
+        };
+    }
+    
+    /**
+     * Receiver type mixes seen by the call sites.
+     */
+    enum Mix {
+        MONO(1), BI(2), MEGA(3);
+        
+        private final int types;
+        
+        Mix(int types) {
+            this.types = types;
+        }
+        
+        Shape[] shapes(int size, Random random) {
+            Shape[] shapes = new Shape[size];
+            for (int i = 0; i < size; i++) {
+                double d = 1 + random.nextDouble();
+                shapes[i] = switch (random.nextInt(types)) {
+                    case 0 -> new Circle(d);
+                    case 1 -> new Rectangle(d, d + 1);
+                    default -> new Triangle(d + 2, d + 3, d + 4);
+                };
+            }
+            return shapes;
+        }
+    }
+}
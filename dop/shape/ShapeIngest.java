@@ -0,0 +1,171 @@
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Reads a text file with one shape per line ({@code circle 5.0}, {@code rect 4 6}, {@code tri 3 4 5},
+ * see ShapeLineParser) and aggregates area and perimeter into ShapeStatistics while parsing.
+ * <p>
+ * The file is memory-mapped, never read onto the heap, and a valid line allocates nothing:
+ * its dimensions go from the parser straight into the statistics without a Shape record.
+ * Invalid lines do not stop the run; they are counted and the first MAX_REPORTED of them are
+ * returned with their 1-based line numbers, the offending text and the reason.
+ * <p>
+ * parallelIngest() cuts the file into chunks that end just after a newline, parses them on the
+ * common fork-join pool and merges the chunks in file order, so line numbers and counts are
+ * the same as ingest() and the sums agree to the last few ULPs.
+ * <pre>
+ * ShapeIngest.Result result = ShapeIngest.parallelIngest(Path.of("shapes.txt"));
+ * System.out.println(result.statistics().total());
+ * </pre>
+ */
+public final class ShapeIngest {
+    
+    /**
+     * Invalid lines kept in a Result; any further ones are only counted.
+     */
+    public static final int MAX_REPORTED = 1000;
+    
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int MAX_TEXT_LENGTH = 200;
+    
+    private ShapeIngest() {
+    }
+    
+    /**
+     * A rejected line.
+     * @param line 1-based line number
+     * @param text the line without its terminator, cut to 200 bytes
+     */
+    public record InvalidLine(long line, String text, String reason) { }
+    
+    /**
+     * @param lines lines read, including blank, comment and invalid lines
+     * @param invalidLines lines rejected
+     * @param invalid the first MAX_REPORTED rejected lines, in file order
+     */
+    public record Result(ShapeStatistics statistics, long lines, long invalidLines, List<InvalidLine> invalid) { }
+    
+    /**
+     * Parses the file on the calling thread.
+     */
+    public static Result ingest(Path file) throws IOException {
+        return ingest(file, false);
+    }
+    
+    /**
+     * Parses the file in chunks on the common fork-join pool.
+     */
+    public static Result parallelIngest(Path file) throws IOException {
+        return ingest(file, true);
+    }
+    
+    private static Result ingest(Path file, boolean parallel) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             Arena arena = Arena.ofShared()) {
+            MemorySegment text = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            if (!parallel) {
+                return merge(new Chunk[] {parse(text, 0, text.byteSize())});
+            }
+            long[] bounds = chunkBounds(text, ForkJoinPool.commonPool().getParallelism());
+            Chunk[] chunks = IntStream.range(0, bounds.length - 1).parallel()
+                    .mapToObj(c -> parse(text, bounds[c], bounds[c + 1]))
+                    .toArray(Chunk[]::new);
+            return merge(chunks);
+        }
+    }
+    
+    /**
+     * @return offsets from 0 to the end of text; every one but the last follows a newline
+     */
+    private static long[] chunkBounds(MemorySegment text, int threads) {
+        long size = text.byteSize();
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, size / ((long) threads * CHUNKS_PER_THREAD));
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long position = 0;
+        while (position < size) {
+            position = Math.min(size, position + chunkSize);
+            while (position < size && text.get(ValueLayout.JAVA_BYTE, position - 1) != '\n') {
+                position++;
+            }
+            bounds.add(position);
+        }
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+    
+    /**
+     * Parses the lines of text[from..to); from must start a line.
+     */
+    private static Chunk parse(MemorySegment text, long from, long to) {
+        Chunk chunk = new Chunk();
+        ShapeLineParser parser = new ShapeLineParser();
+        long start = from;
+        while (start < to) {
+            long newline = start;
+            while (newline < to && text.get(ValueLayout.JAVA_BYTE, newline) != '\n') {
+                newline++;
+            }
+            long end = newline > start && text.get(ValueLayout.JAVA_BYTE, newline - 1) == '\r' ? newline - 1 : newline;
+            chunk.lines++;
+            String reason = parser.parse(text, start, end, chunk.statistics);
+            if (reason != null) {
+                chunk.reject(text, start, end, reason);
+            }
+            start = newline + 1;
+        }
+        return chunk;
+    }
+    
+    /**
+     * Combines the chunks in file order, turning their line numbers into file line numbers.
+     */
+    private static Result merge(Chunk[] chunks) {
+        ShapeStatistics statistics = new ShapeStatistics();
+        List<InvalidLine> invalid = new ArrayList<>();
+        long lines = 0;
+        long invalidLines = 0;
+        for (Chunk chunk : chunks) {
+            statistics.combine(chunk.statistics);
+            for (InvalidLine line : chunk.invalid) {
+                if (invalid.size() == MAX_REPORTED) {
+                    break;
+                }
+                invalid.add(new InvalidLine(lines + line.line(), line.text(), line.reason()));
+            }
+            lines += chunk.lines;
+            invalidLines += chunk.invalidLines;
+        }
+        return new Result(statistics, lines, invalidLines, List.copyOf(invalid));
+    }
+    
+    /**
+     * What one chunk contributed, with line numbers counted from its own start.
+     */
+    private static final class Chunk {
+        final ShapeStatistics statistics = new ShapeStatistics();
+        final List<InvalidLine> invalid = new ArrayList<>();
+        long lines;
+        long invalidLines;
+        
+        void reject(MemorySegment text, long start, long end, String reason) {
+            invalidLines++;
+            // Earlier chunks may already fill the report, but that is only known when merging
+            if (invalid.size() < MAX_REPORTED) {
+                byte[] bytes = text.asSlice(start, Math.min(end - start, MAX_TEXT_LENGTH))
+                        .toArray(ValueLayout.JAVA_BYTE);
+                invalid.add(new InvalidLine(lines, new String(bytes, StandardCharsets.UTF_8), reason));
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+import bench.Bench;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares ShapeIngest with reading the same text file line by line through BufferedReader,
+ * String.split and Double.parseDouble into Shape records. One operation is one line.
+ * <p>
+ * Before measuring, the parser's numbers are checked against Double.parseDouble on edge cases,
+ * and both ingest methods must report the same counts and invalid lines as the split loop;
+ * sequential ingest must also produce bit-identical sums.
+ * Run one case per JVM, e.g. {@code java ShapeIngestBenchmark ingest/parallel}.
+ */
+public class ShapeIngestBenchmark {
+    
+    private static final int LINES = 1_000_000;
+    private static final String[] NUMBERS = {
+        "0", "1", "5.0", "+2.5", "-0.0", "0.1", ".5", "7.", "1e3", "1E-3", "2.5e+2", "123456789012345678",
+        "1234567890123456789012", "0.30000000000000004", "9007199254740993", "4.9e-324", "1.7976931348623157e308",
+        "1e400", "1e-400", "0.000000000000000000000000001", "3.14159265358979323846264338327950288"
+    };
+    
+    public static void main(String[] args) throws IOException {
+        checkNumbers();
+        Path file = Files.createTempFile("shapes", ".txt");
+        try {
+            write(file, new Random(42));
+            System.out.printf("Input: %d lines, %d bytes%n%n", LINES, Files.size(file));
+            verify(file);
+            
+            Bench bench = new Bench(args);
+            bench.run("split/records", LINES, () -> split(file).statistics().total().area().sum());
+            bench.run("ingest/sequential", LINES, () -> ingest(file, false).statistics().total().area().sum());
+            bench.run("ingest/parallel", LINES, () -> ingest(file, true).statistics().total().area().sum());
+        } finally {
+            Files.delete(file);
+        }
+    }
+    
+    /**
+     * The usual loop: one String per line and per token, one record per shape.
+     */
+    private static ShapeIngest.Result split(Path file) {
+        ShapeStatistics statistics = new ShapeStatistics();
+        List<ShapeIngest.InvalidLine> invalid = new ArrayList<>();
+        long lines = 0;
+        long invalidLines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines++;
+                String trimmed = line.strip();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    String[] tokens = trimmed.split("\\s+");
+                    Shape shape = switch (tokens[0]) {
+                        case "circle" -> new Circle(number(tokens, 1, 1));
+                        case "rect" -> new Rectangle(number(tokens, 1, 2), number(tokens, 2, 2));
+                        case "tri" -> new Triangle(number(tokens, 1, 3), number(tokens, 2, 3), number(tokens, 3, 3));
+                        default -> throw new IllegalArgumentException("Unknown shape");
+                    };
+                    statistics.accept(shape);
+                } catch (IllegalArgumentException e) {
+                    invalidLines++;
+                    if (invalid.size() < ShapeIngest.MAX_REPORTED) {
+                        invalid.add(new ShapeIngest.InvalidLine(lines, line, e.getMessage()));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new ShapeIngest.Result(statistics, lines, invalidLines, invalid);
+    }
+    
+    private static double number(String[] tokens, int index, int arity) {
+        if (tokens.length != arity + 1) {
+            throw new IllegalArgumentException("Expected " + arity + " numbers");
+        }
+        return Double.parseDouble(tokens[index]);
+    }
+    
+    private static ShapeIngest.Result ingest(Path file, boolean parallel) {
+        try {
+            return parallel ? ShapeIngest.parallelIngest(file) : ShapeIngest.ingest(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Shapes with up to three decimals, as measurements usually come, and an invalid line every 10,000.
+     */
+    private static void write(Path file, Random random) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < LINES; i++) {
+                int d = 1000 + random.nextInt(100_000);
+                if (i % 10_000 == 9_999) {
+                    writer.write(i % 20_000 == 9_999 ? "rect " + milli(d) : "circle -" + milli(d));
+                } else {
+                    writer.write(switch (random.nextInt(3)) {
+                        case 0 -> "circle " + milli(d);
+                        case 1 -> "rect " + milli(d) + " " + milli(d + 1000);
+                        default -> "tri " + milli(d + 2000) + " " + milli(d + 3000) + " " + milli(d + 4000);
+                    });
+                }
+                writer.newLine();
+            }
+        }
+    }
+    
+    private static String milli(int thousandths) {
+        return Double.toString(thousandths / 1000.0);
+    }
+    
+    private static void checkNumbers() {
+        ShapeLineParser parser = new ShapeLineParser();
+        double[] parsed = new double[1];
+        ShapeCodec.Visitor radius = new ShapeCodec.Visitor() {
+            @Override
+            public void circle(double value) {
+                parsed[0] = value;
+            }
+            
+            @Override
+            public void rectangle(double width, double height) {
+            }
+            
+            @Override
+            public void triangle(double sideA, double sideB, double sideC) {
+            }
+        };
+        for (String number : NUMBERS) {
+            double expected = Double.parseDouble(number);
+            MemorySegment line = MemorySegment.ofArray(("circle " + number).getBytes(StandardCharsets.US_ASCII));
+            parsed[0] = Double.NaN;
+            String reason = parser.parse(line, 0, line.byteSize(), radius);
+            // Circle rejects what is not positive and the parser what overflows, like 1e400
+            if (expected > 0 && Double.isFinite(expected) ? reason != null || Double.compare(parsed[0], expected) != 0 : reason == null) {
+                throw new AssertionError("Parser disagrees with Double.parseDouble on " + number
+                        + ": " + parsed[0] + ", " + reason);
+            }
+        }
+    }
+    
+    private static void verify(Path file) {
+        ShapeIngest.Result expected = split(file);
+        ShapeIngest.Result sequential = ingest(file, false);
+        ShapeIngest.Result parallel = ingest(file, true);
+        for (ShapeIngest.Result actual : List.of(sequential, parallel)) {
+            check(actual.lines() == expected.lines(), "lines");
+            check(actual.invalidLines() == expected.invalidLines(), "invalid lines");
+            for (int i = 0; i < expected.invalid().size(); i++) {
+                check(actual.invalid().get(i).line() == expected.invalid().get(i).line(), "invalid line numbers");
+            }
+            for (Class<? extends Shape> type : List.of(Circle.class, Rectangle.class, Triangle.class)) {
+                ShapeStatistics.Group group = actual.statistics().of(type);
+                ShapeStatistics.Group reference = expected.statistics().of(type);
+                check(group.count() == reference.count(), "count of " + type.getSimpleName());
+                check(Math.abs(group.area().sum() - reference.area().sum()) <= 1e-12 * reference.area().sum(),
+                        "area of " + type.getSimpleName());
+                check(group.perimeter().max() == reference.perimeter().max(), "perimeter of " + type.getSimpleName());
+            }
+        }
+        check(sequential.statistics().total().area().sum() == expected.statistics().total().area().sum()
+                && sequential.statistics().total().perimeter().sum() == expected.statistics().total().perimeter().sum(),
+                "sequential sums");
+    }
+    
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new AssertionError("ShapeIngest disagrees with the split loop: " + what);
+        }
+    }
+}
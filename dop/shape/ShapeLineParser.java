@@ -0,0 +1,227 @@
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses one line of the ShapeIngest text format straight from a MemorySegment:
+ * <pre>
+ * circle &lt;radius&gt;
+ * rect &lt;width&gt; &lt;height&gt;
+ * tri &lt;sideA&gt; &lt;sideB&gt; &lt;sideC&gt;
+ * </pre>
+ * Tokens are separated by spaces or tabs; blank lines and lines starting with '#' hold no shape.
+ * <p>
+ * Numbers are read in place without creating a String. Up to 18 significant digits are
+ * collected into a long, and when that mantissa fits in 53 bits and the decimal exponent in
+ * [-22, 22] one multiplication or division by an exact power of ten gives the correctly rounded
+ * double. Anything else falls back to Double.parseDouble, so every result is the double
+ * Double.parseDouble would return for the same token. Tokens that overflow to infinity are
+ * rejected as out of range rather than passed on as dimensions.
+ * <p>
+ * A parser is reused from line to line and is not thread-safe.
+ */
+final class ShapeLineParser {
+    
+    private static final int MAX_DIGITS = 18;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    
+    private static final byte[] CIRCLE = "circle".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RECTANGLE = "rect".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRIANGLE = "tri".getBytes(StandardCharsets.US_ASCII);
+    
+    private final double[] dimensions = new double[3];
+    private byte[] scratch = new byte[32];
+    private MemorySegment text;
+    private long position;
+    private long end;
+    
+    /**
+     * Parses text[start..end), which must not contain the line terminator, and passes
+     * a valid shape's dimensions to the visitor.
+     * @return null if the line held a shape or nothing at all, otherwise why it was rejected
+     */
+    String parse(MemorySegment text, long start, long end, ShapeCodec.Visitor visitor) {
+        this.text = text;
+        this.position = start;
+        this.end = end;
+        skipBlanks();
+        if (position == end || at(position) == '#') {
+            return null;
+        }
+        long keyword = position;
+        while (position < end && !isBlank(at(position))) {
+            position++;
+        }
+        byte tag;
+        int arity;
+        if (keywordIs(keyword, CIRCLE)) {
+            tag = ShapeSegment.CIRCLE;
+            arity = 1;
+        } else if (keywordIs(keyword, RECTANGLE)) {
+            tag = ShapeSegment.RECTANGLE;
+            arity = 2;
+        } else if (keywordIs(keyword, TRIANGLE)) {
+            tag = ShapeSegment.TRIANGLE;
+            arity = 3;
+        } else {
+            return "Unknown shape, expected circle, rect or tri";
+        }
+        for (int i = 0; i < arity; i++) {
+            skipBlanks();
+            if (position == end) {
+                return "Expected " + arity + (arity == 1 ? " number" : " numbers");
+            }
+            double value = parseNumber();
+            if (Double.isNaN(value)) {
+                return "Malformed number";
+            }
+            if (Double.isInfinite(value)) {
+                return "Number out of range";
+            }
+            dimensions[i] = value;
+        }
+        skipBlanks();
+        if (position != end) {
+            return "Unexpected text after " + arity + (arity == 1 ? " number" : " numbers");
+        }
+        try {
+            switch (tag) {
+                case ShapeSegment.CIRCLE -> Circle.checkDimensions(dimensions[0]);
+                case ShapeSegment.RECTANGLE -> Rectangle.checkDimensions(dimensions[0], dimensions[1]);
+                default -> Triangle.checkDimensions(dimensions[0], dimensions[1], dimensions[2]);
+            }
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        switch (tag) {
+            case ShapeSegment.CIRCLE -> visitor.circle(dimensions[0]);
+            case ShapeSegment.RECTANGLE -> visitor.rectangle(dimensions[0], dimensions[1]);
+            default -> visitor.triangle(dimensions[0], dimensions[1], dimensions[2]);
+        }
+        return null;
+    }
+    
+    /**
+     * Reads the decimal number starting at position, with optional sign, fraction and exponent.
+     * @return the value, or NaN if the token is not such a number
+     */
+    private double parseNumber() {
+        long start = position;
+        boolean negative = false;
+        byte b = at(position);
+        if (b == '+' || b == '-') {
+            negative = b == '-';
+            position++;
+        }
+        long mantissa = 0;
+        int significant = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean dropped = false;
+        while (position < end && isDigit(b = at(position))) {
+            if (significant < MAX_DIGITS) {
+                mantissa = mantissa * 10 + (b - '0');
+                significant += mantissa == 0 ? 0 : 1;
+            } else {
+                exponent++;
+                dropped |= b != '0';
+            }
+            digits++;
+            position++;
+        }
+        if (position < end && at(position) == '.') {
+            position++;
+            while (position < end && isDigit(b = at(position))) {
+                if (significant < MAX_DIGITS) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    significant += mantissa == 0 ? 0 : 1;
+                    exponent--;
+                } else {
+                    dropped |= b != '0';
+                }
+                digits++;
+                position++;
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+        if (position < end && (at(position) == 'e' || at(position) == 'E')) {
+            position++;
+            boolean negativeExponent = false;
+            if (position < end && (at(position) == '+' || at(position) == '-')) {
+                negativeExponent = at(position) == '-';
+                position++;
+            }
+            int value = 0;
+            int exponentDigits = 0;
+            while (position < end && isDigit(b = at(position))) {
+                // Past this any double is zero or infinite, and the fallback decides which
+                value = Math.min(value * 10 + (b - '0'), 100_000);
+                exponentDigits++;
+                position++;
+            }
+            if (exponentDigits == 0) {
+                return Double.NaN;
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (position < end && !isBlank(at(position))) {
+            return Double.NaN;
+        }
+        if (!dropped && mantissa <= MAX_EXACT_MANTISSA && exponent >= -22 && exponent <= 22) {
+            double value = exponent < 0
+                    ? mantissa / POWERS_OF_TEN[-exponent]
+                    : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        }
+        return fallback(start);
+    }
+    
+    /**
+     * Parses the token text[start..position) with Double.parseDouble; only reached for
+     * numbers with too many digits or too large an exponent for the exact path.
+     */
+    private double fallback(long start) {
+        int length = (int) (position - start);
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, 2 * scratch.length)];
+        }
+        MemorySegment.copy(text, ValueLayout.JAVA_BYTE, start, scratch, 0, length);
+        return Double.parseDouble(new String(scratch, 0, length, StandardCharsets.US_ASCII));
+    }
+    
+    private boolean keywordIs(long keyword, byte[] expected) {
+        if (position - keyword != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (at(keyword + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private void skipBlanks() {
+        while (position < end && isBlank(at(position))) {
+            position++;
+        }
+    }
+    
+    private byte at(long offset) {
+        return text.get(ValueLayout.JAVA_BYTE, offset);
+    }
+    
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t';
+    }
+    
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
@@ -0,0 +1,89 @@
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams shapes from a channel in the ShapeCodec format through one reusable direct buffer.
+ * read() returns validated records; read(Visitor) hands over validated dimensions
+ * and allocates nothing per record.
+ */
+public final class ShapeReader implements Closeable {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).flip();
+    private boolean endOfInput;
+    
+    public ShapeReader(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+    
+    public static ShapeReader open(Path file) throws IOException {
+        return new ShapeReader(FileChannel.open(file, StandardOpenOption.READ));
+    }
+    
+    /**
+     * Reads the next shape.
+     * @return the shape, or null at the end of the stream
+     * @throws EOFException if the stream ends inside a record
+     */
+    public Shape read() throws IOException {
+        if (!fillRecord()) {
+            return null;
+        }
+        return ShapeCodec.decode(buffer);
+    }
+    
+    /**
+     * Reads the next shape into the visitor.
+     * @return false at the end of the stream
+     * @throws EOFException if the stream ends inside a record
+     */
+    public boolean read(ShapeCodec.Visitor visitor) throws IOException {
+        if (!fillRecord()) {
+            return false;
+        }
+        ShapeCodec.decode(buffer, visitor);
+        return true;
+    }
+    
+    /**
+     * Makes sure the next complete record is buffered.
+     * @return false if the stream ended cleanly before it
+     */
+    private boolean fillRecord() throws IOException {
+        if (!fill(1)) {
+            return false;
+        }
+        int size = ShapeCodec.recordSize(buffer.get(buffer.position()));
+        if (!fill(size)) {
+            throw new EOFException("Stream ends inside a shape record");
+        }
+        return true;
+    }
+    
+    private boolean fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes && !endOfInput) {
+            if (channel.read(buffer) < 0) {
+                endOfInput = true;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= bytes;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,260 @@
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Off-heap store of shapes in a MemorySegment, with a fixed 32-byte record per shape:
+ * a type tag for the permitted Shape subtype followed by up to three dimensions.
+ * <pre>
+ * offset 0   tag      byte    1 = Circle, 2 = Rectangle, 3 = Triangle
+ * offset 8   a        double  radius / width / sideA
+ * offset 16  b        double  -      / height / sideB
+ * offset 24  c        double  -      / -      / sideC
+ * </pre>
+ * Files start with a 16-byte header (magic, version, count) and are little-endian,
+ * so map() opens a dataset without copying or parsing it.
+ * <p>
+ * Shape is sealed to the three records, so instead of a flyweight Shape the store hands out
+ * a reusable Cursor with the same area() and perimeter() formulas; get() materializes a record.
+ * The segment lives as long as the Arena it was allocated or mapped in.
+ */
+public final class ShapeSegment {
+    
+    public static final byte CIRCLE = 1;
+    public static final byte RECTANGLE = 2;
+    public static final byte TRIANGLE = 3;
+    
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE.withOrder(ByteOrder.LITTLE_ENDIAN);
+    
+    /**
+     * Layout of one shape record.
+     */
+    public static final MemoryLayout RECORD = MemoryLayout.structLayout(
+            ValueLayout.JAVA_BYTE.withName("tag"),
+            MemoryLayout.paddingLayout(7),
+            DOUBLE.withName("a"),
+            DOUBLE.withName("b"),
+            DOUBLE.withName("c"));
+    
+    private static final long RECORD_SIZE = RECORD.byteSize();
+    private static final long TAG = RECORD.byteOffset(MemoryLayout.PathElement.groupElement("tag"));
+    private static final long A = RECORD.byteOffset(MemoryLayout.PathElement.groupElement("a"));
+    private static final long B = RECORD.byteOffset(MemoryLayout.PathElement.groupElement("b"));
+    private static final long C = RECORD.byteOffset(MemoryLayout.PathElement.groupElement("c"));
+    
+    private static final int MAGIC = 0x53485031; // "SHP1"
+    private static final int VERSION = 1;
+    private static final long HEADER_SIZE = 16;
+    
+    private final MemorySegment records;
+    private final long size;
+    
+    private ShapeSegment(MemorySegment records) {
+        this.records = records;
+        this.size = records.byteSize() / RECORD_SIZE;
+    }
+    
+    /**
+     * Copies shapes into a new off-heap segment owned by arena.
+     */
+    public static ShapeSegment allocate(Arena arena, Shape... shapes) {
+        MemorySegment records = arena.allocate(RECORD_SIZE * shapes.length, 8);
+        for (int i = 0; i < shapes.length; i++) {
+            writeRecord(records, i * RECORD_SIZE, shapes[i]);
+        }
+        return new ShapeSegment(records);
+    }
+    
+    /**
+     * Writes shapes to a file in the format read by map().
+     */
+    public static void write(Path file, Shape... shapes) throws IOException {
+        long fileSize = HEADER_SIZE + RECORD_SIZE * shapes.length;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             Arena arena = Arena.ofConfined()) {
+            MemorySegment mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize, arena);
+            mapped.set(INT, 0, MAGIC);
+            mapped.set(INT, 4, VERSION);
+            mapped.set(LONG, 8, shapes.length);
+            for (int i = 0; i < shapes.length; i++) {
+                writeRecord(mapped, HEADER_SIZE + i * RECORD_SIZE, shapes[i]);
+            }
+            mapped.force();
+        }
+    }
+    
+    /**
+     * Maps a file written by write() read-only. Only the header is checked;
+     * records are decoded lazily, so opening costs the same for any file size.
+     * @throws IOException if the file is not a shape dataset
+     */
+    public static ShapeSegment map(Arena arena, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("Not a shape dataset: " + file);
+            }
+            MemorySegment mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize, arena);
+            if (mapped.get(INT, 0) != MAGIC || mapped.get(INT, 4) != VERSION) {
+                throw new IOException("Not a shape dataset: " + file);
+            }
+            long count = mapped.get(LONG, 8);
+            if (count < 0 || HEADER_SIZE + count * RECORD_SIZE != fileSize) {
+                throw new IOException("Truncated shape dataset: " + file);
+            }
+            return new ShapeSegment(mapped.asSlice(HEADER_SIZE));
+        }
+    }
+    
+    /**
+     * @return the number of shapes
+     */
+    public long size() {
+        return size;
+    }
+    
+    /**
+     * @return the type tag of the shape at index
+     */
+    public byte tag(long index) {
+        return records.get(ValueLayout.JAVA_BYTE, offset(index) + TAG);
+    }
+    
+    /**
+     * Materializes the shape at index as a record, running its constructor checks.
+     */
+    public Shape get(long index) {
+        long base = offset(index);
+        return switch (records.get(ValueLayout.JAVA_BYTE, base + TAG)) {
+            case CIRCLE -> new Circle(records.get(DOUBLE, base + A));
+            case RECTANGLE -> new Rectangle(records.get(DOUBLE, base + A), records.get(DOUBLE, base + B));
+            case TRIANGLE -> new Triangle(records.get(DOUBLE, base + A), records.get(DOUBLE, base + B),
+                    records.get(DOUBLE, base + C));
+            default -> throw new IllegalStateException("Unknown shape tag at index " + index);
+        };
+    }
+    
+    /**
+     * @return a new cursor positioned before the first shape
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+    
+    /**
+     * Sums the areas of all shapes without materializing any record.
+     */
+    public double totalArea() {
+        Cursor cursor = new Cursor();
+        double sum = 0;
+        for (long i = 0; i < size; i++) {
+            sum += cursor.moveTo(i).area();
+        }
+        return sum;
+    }
+    
+    private long offset(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return index * RECORD_SIZE;
+    }
+    
+    private static void writeRecord(MemorySegment segment, long base, Shape shape) {
+        switch (shape) {
+            case Circle c -> {
+                segment.set(ValueLayout.JAVA_BYTE, base + TAG, CIRCLE);
+                segment.set(DOUBLE, base + A, c.radius());
+            }
+            case Rectangle r -> {
+                segment.set(ValueLayout.JAVA_BYTE, base + TAG, RECTANGLE);
+                segment.set(DOUBLE, base + A, r.width());
+                segment.set(DOUBLE, base + B, r.height());
+            }
+            case Triangle t -> {
+                segment.set(ValueLayout.JAVA_BYTE, base + TAG, TRIANGLE);
+                segment.set(DOUBLE, base + A, t.sideA());
+                segment.set(DOUBLE, base + B, t.sideB());
+                segment.set(DOUBLE, base + C, t.sideC());
+            }
+        }
+    }
+    
+    /**
+     * Flyweight view over one record. Moving it does not allocate, and its
+     * area() and perimeter() match the corresponding record's methods exactly.
+     * Until the first moveTo() it points at no record, and reading it throws IllegalStateException.
+     */
+    public final class Cursor {
+        private long base = -1;
+        private byte tag;
+        
+        private Cursor() {
+        }
+        
+        /**
+         * Points the cursor at the shape at index.
+         * @return this cursor
+         */
+        public Cursor moveTo(long index) {
+            base = offset(index);
+            tag = records.get(ValueLayout.JAVA_BYTE, base + TAG);
+            return this;
+        }
+        
+        public byte tag() {
+            checkPositioned();
+            return tag;
+        }
+        
+        public double area() {
+            checkPositioned();
+            double a = records.get(DOUBLE, base + A);
+            return switch (tag) {
+                case CIRCLE -> Math.PI * a * a;
+                case RECTANGLE -> a * records.get(DOUBLE, base + B);
+                case TRIANGLE -> {
+                    double b = records.get(DOUBLE, base + B);
+                    double c = records.get(DOUBLE, base + C);
+                    double s = (a + b + c) / 2;
+                    yield Math.sqrt(s * (s - a) * (s - b) * (s - c));
+                }
+                default -> throw new IllegalStateException("Unknown shape tag " + tag);
+            };
+        }
+        
+        public double perimeter() {
+            checkPositioned();
+            double a = records.get(DOUBLE, base + A);
+            return switch (tag) {
+                case CIRCLE -> 2 * Math.PI * a;
+                case RECTANGLE -> 2 * (a + records.get(DOUBLE, base + B));
+                case TRIANGLE -> a + records.get(DOUBLE, base + B) + records.get(DOUBLE, base + C);
+                default -> throw new IllegalStateException("Unknown shape tag " + tag);
+            };
+        }
+        
+        /**
+         * Materializes the current shape as a record.
+         */
+        public Shape toShape() {
+            checkPositioned();
+            return get(base / RECORD_SIZE);
+        }
+        
+        private void checkPositioned() {
+            if (base < 0) {
+                throw new IllegalStateException("Cursor is not positioned; call moveTo() first");
+            }
+        }
+    }
+}
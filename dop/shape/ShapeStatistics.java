@@ -0,0 +1,278 @@
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collector;
+
+/**
+ * Count, sum, min, max and mean of area and perimeter, overall and per permitted Shape subtype.
+ * <p>
+ * Sums use Neumaier compensated summation, and partial results are merged together with their
+ * compensation terms, so sequential, parallelStream() and fork-join results agree to the last few ULPs.
+ * <pre>
+ * ShapeStatistics stats = shapes.parallelStream().collect(ShapeStatistics.collector());
+ * ShapeStatistics same = ShapeStatistics.of(shapes);  // fork-join over the list
+ * </pre>
+ * As a ShapeCodec.Visitor it also takes bare dimensions from decoders and parsers, with the
+ * area() and perimeter() formulas of the records, so no record has to be built first.
+ */
+public final class ShapeStatistics implements ShapeCodec.Visitor {
+    
+    /**
+     * Below this many elements a fork-join task stops splitting.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 1 << 14;
+    
+    private final Group circles = new Group();
+    private final Group rectangles = new Group();
+    private final Group triangles = new Group();
+    
+    /**
+     * Collector usable with both sequential and parallel streams.
+     */
+    public static Collector<Shape, ?, ShapeStatistics> collector() {
+        return Collector.of(ShapeStatistics::new, ShapeStatistics::accept, ShapeStatistics::combine,
+                Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+    }
+    
+    /**
+     * Computes statistics over an array by splitting it across the common fork-join pool.
+     */
+    public static ShapeStatistics of(Shape[] shapes) {
+        return ForkJoinPool.commonPool().invoke(new RangeTask(shapes, null, 0, shapes.length));
+    }
+    
+    /**
+     * Computes statistics over a list by splitting it across the common fork-join pool.
+     * The list should support fast random access.
+     */
+    public static ShapeStatistics of(List<? extends Shape> shapes) {
+        return ForkJoinPool.commonPool().invoke(new RangeTask(null, shapes, 0, shapes.size()));
+    }
+    
+    /**
+     * Adds one shape.
+     */
+    public void accept(Shape shape) {
+        switch (shape) {
+            case Circle c -> circles.add(c.area(), c.perimeter());
+            case Rectangle r -> rectangles.add(r.area(), r.perimeter());
+            case Triangle t -> triangles.add(t.area(), t.perimeter());
+        }
+    }
+    
+    @Override
+    public void circle(double radius) {
+        circles.add(Math.PI * radius * radius, 2 * Math.PI * radius);
+    }
+    
+    @Override
+    public void rectangle(double width, double height) {
+        rectangles.add(width * height, 2 * (width + height));
+    }
+    
+    @Override
+    public void triangle(double sideA, double sideB, double sideC) {
+        double s = (sideA + sideB + sideC) / 2;
+        triangles.add(Math.sqrt(s * (s - sideA) * (s - sideB) * (s - sideC)), sideA + sideB + sideC);
+    }
+    
+    /**
+     * Merges other into this, keeping compensation terms.
+     * @return this
+     */
+    public ShapeStatistics combine(ShapeStatistics other) {
+        circles.combine(other.circles);
+        rectangles.combine(other.rectangles);
+        triangles.combine(other.triangles);
+        return this;
+    }
+    
+    /**
+     * @return statistics over all shapes
+     */
+    public Group total() {
+        Group total = new Group();
+        total.combine(circles);
+        total.combine(rectangles);
+        total.combine(triangles);
+        return total;
+    }
+    
+    /**
+     * @return statistics for one permitted subtype
+     */
+    public Group of(Class<? extends Shape> type) {
+        if (type == Circle.class) {
+            return circles;
+        } else if (type == Rectangle.class) {
+            return rectangles;
+        } else if (type == Triangle.class) {
+            return triangles;
+        }
+        throw new IllegalArgumentException("Not a permitted Shape subtype: " + type);
+    }
+    
+    @Override
+    public String toString() {
+        return "ShapeStatistics[total=" + total() + ", circles=" + circles
+                + ", rectangles=" + rectangles + ", triangles=" + triangles + "]";
+    }
+    
+    /**
+     * Area and perimeter statistics for one group of shapes.
+     */
+    public static final class Group {
+        private final Measure area = new Measure();
+        private final Measure perimeter = new Measure();
+        
+        private void add(double areaValue, double perimeterValue) {
+            area.add(areaValue);
+            perimeter.add(perimeterValue);
+        }
+        
+        private void combine(Group other) {
+            area.combine(other.area);
+            perimeter.combine(other.perimeter);
+        }
+        
+        public long count() {
+            return area.count();
+        }
+        
+        public Measure area() {
+            return area;
+        }
+        
+        public Measure perimeter() {
+            return perimeter;
+        }
+        
+        @Override
+        public String toString() {
+            return "Group[count=" + count() + ", area=" + area + ", perimeter=" + perimeter + "]";
+        }
+    }
+    
+    /**
+     * Count, compensated sum, min and max of one quantity.
+     */
+    public static final class Measure {
+        private long count;
+        private double sum;
+        private double compensation;
+        // Uncompensated sum, which stays infinite where the compensated one turns into Inf - Inf
+        private double simpleSum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        
+        private void add(double value) {
+            count++;
+            simpleSum += value;
+            addToSum(value);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        
+        private void combine(Measure other) {
+            count += other.count;
+            simpleSum += other.simpleSum;
+            addToSum(other.sum);
+            addToSum(other.compensation);
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+        
+        /**
+         * Neumaier's variant of Kahan summation: the rounding error of every addition
+         * is collected in compensation, whichever operand is larger.
+         */
+        private void addToSum(double value) {
+            double t = sum + value;
+            if (Math.abs(sum) >= Math.abs(value)) {
+                compensation += (sum - t) + value;
+            } else {
+                compensation += (value - t) + sum;
+            }
+            sum = t;
+        }
+        
+        public long count() {
+            return count;
+        }
+        
+        /**
+         * @return the compensated sum; infinite rather than NaN once a value or the sum overflows,
+         *         as DoubleSummaryStatistics.getSum() does
+         */
+        public double sum() {
+            double total = sum + compensation;
+            return Double.isNaN(total) && Double.isInfinite(simpleSum) ? simpleSum : total;
+        }
+        
+        /**
+         * @return the smallest value, or positive infinity if empty
+         */
+        public double min() {
+            return min;
+        }
+        
+        /**
+         * @return the largest value, or negative infinity if empty
+         */
+        public double max() {
+            return max;
+        }
+        
+        /**
+         * @return the arithmetic mean, or zero if empty
+         */
+        public double mean() {
+            return count == 0 ? 0.0 : sum() / count;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("{sum=%f, min=%f, max=%f, mean=%f}", sum(), min, max, mean());
+        }
+    }
+    
+    /**
+     * Splits an index range of an array or list in halves until it is small enough to scan.
+     */
+    @SuppressWarnings("serial")
+    private static final class RangeTask extends RecursiveTask<ShapeStatistics> {
+        private final Shape[] array;
+        private final transient List<? extends Shape> list;
+        private final int from;
+        private final int to;
+        
+        RangeTask(Shape[] array, List<? extends Shape> list, int from, int to) {
+            this.array = array;
+            this.list = list;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected ShapeStatistics compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                ShapeStatistics stats = new ShapeStatistics();
+                if (array != null) {
+                    for (int i = from; i < to; i++) {
+                        stats.accept(array[i]);
+                    }
+                } else {
+                    for (int i = from; i < to; i++) {
+                        stats.accept(list.get(i));
+                    }
+                }
+                return stats;
+            }
+            int mid = (from + to) >>> 1;
+            RangeTask left = new RangeTask(array, list, from, mid);
+            left.fork();
+            ShapeStatistics right = new RangeTask(array, list, mid, to).compute();
+            return left.join().combine(right);
+        }
+    }
+}
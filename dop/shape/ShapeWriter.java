@@ -0,0 +1,57 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams shapes to a channel in the ShapeCodec format through one reusable direct buffer.
+ */
+public final class ShapeWriter implements Closeable {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    
+    public ShapeWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+    
+    /**
+     * Opens a writer that creates or truncates the file.
+     */
+    public static ShapeWriter open(Path file) throws IOException {
+        return new ShapeWriter(FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+    }
+    
+    public void write(Shape shape) throws IOException {
+        if (buffer.remaining() < ShapeCodec.MAX_RECORD_SIZE) {
+            flush();
+        }
+        ShapeCodec.encode(shape, buffer);
+    }
+    
+    /**
+     * Writes out everything buffered so far.
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
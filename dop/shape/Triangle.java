@@ -1,16 +1,35 @@
-
-public final class Triangle implements Shape {
-
+/**
+ * Record implementation of Shape representing a triangle given by its three sides.
+ */
+public record Triangle(double sideA, double sideB, double sideC) implements Shape {
+    
+    public Triangle {
+        checkDimensions(sideA, sideB, sideC);
+    }
+    
+    /**
+     * Validation shared by the constructor and decoders that do not build a record.
+     */
+    static void checkDimensions(double sideA, double sideB, double sideC) {
+        if (sideA <= 0 || sideB <= 0 || sideC <= 0) {
+            throw new IllegalArgumentException("Sides must be positive");
+        }
+        if (sideA + sideB <= sideC || sideA + sideC <= sideB || sideB + sideC <= sideA) {
+            throw new IllegalArgumentException("Sides must satisfy the triangle inequality");
+        }
+    }
+    
+    /**
+     * Calculates the area using Heron's formula.
+     */
     @Override
     public double area() {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'area'");
+        double s = (sideA + sideB + sideC) / 2;
+        return Math.sqrt(s * (s - sideA) * (s - sideB) * (s - sideC));
     }
-
+    
     @Override
     public double perimeter() {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'perimeter'");
+        return sideA + sideB + sideC;
     }
-
 }
@@ -0,0 +1,140 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * ShapeBatch kernels on the incubator Vector API.
+ * Only loaded when jdk.incubator.vector is resolved; ShapeBatch falls back to scalar loops otherwise.
+ * Lane operations apply the records' formulas in the same order, so per-element results are bit-identical.
+ */
+final class VectorShapeKernels implements ShapeBatch.Kernels {
+    
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    
+    @Override
+    public void circleAreas(double[] radius, int[] pos, double[] out) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(radius.length); i < bound; i += SPECIES.length()) {
+            DoubleVector r = DoubleVector.fromArray(SPECIES, radius, i);
+            r.mul(Math.PI).mul(r).intoArray(out, 0, pos, i);
+        }
+        for (; i < radius.length; i++) {
+            out[pos[i]] = Math.PI * radius[i] * radius[i];
+        }
+    }
+    
+    @Override
+    public void circlePerimeters(double[] radius, int[] pos, double[] out) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(radius.length); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, radius, i).mul(2 * Math.PI).intoArray(out, 0, pos, i);
+        }
+        for (; i < radius.length; i++) {
+            out[pos[i]] = 2 * Math.PI * radius[i];
+        }
+    }
+    
+    @Override
+    public double circleAreaSum(double[] radius) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(radius.length); i < bound; i += SPECIES.length()) {
+            DoubleVector r = DoubleVector.fromArray(SPECIES, radius, i);
+            acc = acc.add(r.mul(Math.PI).mul(r));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < radius.length; i++) {
+            sum += Math.PI * radius[i] * radius[i];
+        }
+        return sum;
+    }
+    
+    @Override
+    public void rectangleAreas(double[] width, double[] height, int[] pos, double[] out) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(width.length); i < bound; i += SPECIES.length()) {
+            DoubleVector w = DoubleVector.fromArray(SPECIES, width, i);
+            DoubleVector h = DoubleVector.fromArray(SPECIES, height, i);
+            w.mul(h).intoArray(out, 0, pos, i);
+        }
+        for (; i < width.length; i++) {
+            out[pos[i]] = width[i] * height[i];
+        }
+    }
+    
+    @Override
+    public void rectanglePerimeters(double[] width, double[] height, int[] pos, double[] out) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(width.length); i < bound; i += SPECIES.length()) {
+            DoubleVector w = DoubleVector.fromArray(SPECIES, width, i);
+            DoubleVector h = DoubleVector.fromArray(SPECIES, height, i);
+            w.add(h).mul(2).intoArray(out, 0, pos, i);
+        }
+        for (; i < width.length; i++) {
+            out[pos[i]] = 2 * (width[i] + height[i]);
+        }
+    }
+    
+    @Override
+    public double rectangleAreaSum(double[] width, double[] height) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(width.length); i < bound; i += SPECIES.length()) {
+            DoubleVector w = DoubleVector.fromArray(SPECIES, width, i);
+            DoubleVector h = DoubleVector.fromArray(SPECIES, height, i);
+            acc = acc.add(w.mul(h));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < width.length; i++) {
+            sum += width[i] * height[i];
+        }
+        return sum;
+    }
+    
+    @Override
+    public void triangleAreas(double[] a, double[] b, double[] c, int[] pos, double[] out) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(a.length); i < bound; i += SPECIES.length()) {
+            heron(a, b, c, i).intoArray(out, 0, pos, i);
+        }
+        for (; i < a.length; i++) {
+            out[pos[i]] = ShapeBatch.ScalarKernels.heron(a[i], b[i], c[i]);
+        }
+    }
+    
+    @Override
+    public void trianglePerimeters(double[] a, double[] b, double[] c, int[] pos, double[] out) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(a.length); i < bound; i += SPECIES.length()) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, i);
+            DoubleVector vb = DoubleVector.fromArray(SPECIES, b, i);
+            DoubleVector vc = DoubleVector.fromArray(SPECIES, c, i);
+            va.add(vb).add(vc).intoArray(out, 0, pos, i);
+        }
+        for (; i < a.length; i++) {
+            out[pos[i]] = a[i] + b[i] + c[i];
+        }
+    }
+    
+    @Override
+    public double triangleAreaSum(double[] a, double[] b, double[] c) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(a.length); i < bound; i += SPECIES.length()) {
+            acc = acc.add(heron(a, b, c, i));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            sum += ShapeBatch.ScalarKernels.heron(a[i], b[i], c[i]);
+        }
+        return sum;
+    }
+    
+    private static DoubleVector heron(double[] a, double[] b, double[] c, int i) {
+        DoubleVector va = DoubleVector.fromArray(SPECIES, a, i);
+        DoubleVector vb = DoubleVector.fromArray(SPECIES, b, i);
+        DoubleVector vc = DoubleVector.fromArray(SPECIES, c, i);
+        DoubleVector s = va.add(vb).add(vc).div(2);
+        return s.mul(s.sub(va)).mul(s.sub(vb)).mul(s.sub(vc)).sqrt();
+    }
+}
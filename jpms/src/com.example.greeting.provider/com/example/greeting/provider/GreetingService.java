@@ -1,9 +1,128 @@
 package com.example.greeting.provider;
 
 import com.example.greeting.provider.internal.GreetingPhraseStorage;
+import com.example.greeting.provider.spi.GreetingPhraseProvider;
+import com.example.greeting.provider.spi.PhraseLocales;
 
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Greets in the caller's language with phrases from GreetingPhraseProvider services.
+ *
+ * Providers are found with ServiceLoader, but only their classes are looked at until a locale
+ * they declare in @PhraseLocales is asked for; then ServiceLoader.Provider.get() creates them.
+ * Each phrase is resolved once and kept in an immutable map. A new phrase is published by
+ * copying that map into a new one (copy-on-write), so getMessage never takes a lock for a
+ * phrase it has resolved before; only the first call for a phrase goes through the slow path.
+ *
+ * The map is keyed by the locale that answered, one a provider declares or English, never by
+ * the locale asked for. Locales come from callers, so a key per request could grow without
+ * bound; this way ja, ja-JP and any other unknown tag all share the English entry.
+ */
 public class GreetingService {
+
+    private final Object lock = new Object();
+    // Immutable snapshot: answering locale -> phrase, replaced as a whole when a locale is added
+    private volatile Map<Locale, String> phrases = Map.of();
+
+    // Immutable once set under lock on the first miss, from the provider classes only
+    private volatile Map<String, ServiceLoader.Provider<GreetingPhraseProvider>> providersByTag;
+    // Guarded by lock
+    private final Map<Class<?>, GreetingPhraseProvider> instances = new HashMap<>();
+
+    /**
+     * @return the English phrase, as before locales were supported
+     */
     public String getMessage() {
-        return GreetingPhraseStorage.getPhrase();
+        return getMessage(Locale.ENGLISH);
+    }
+
+    /**
+     * @return the phrase for the locale, its language, or English, in that order
+     */
+    public String getMessage(Locale locale) {
+        String phrase = phrases.get(locale);
+        return phrase != null ? phrase : resolve(locale);
+    }
+
+    private String resolve(Locale locale) {
+        Locale answering = answeringLocale(locale);
+        String phrase = phrases.get(answering);
+        if (phrase != null) {
+            return phrase;
+        }
+        synchronized (lock) {
+            phrase = phrases.get(answering);
+            if (phrase != null) {
+                return phrase;
+            }
+            ServiceLoader.Provider<GreetingPhraseProvider> provider = providers().get(answering.toLanguageTag());
+            phrase = provider != null
+                    ? instances.computeIfAbsent(provider.type(), type -> provider.get()).getPhrase(answering)
+                    : GreetingPhraseStorage.getPhrase();
+            if (phrase == null) {
+                // The provider has none for this locale after all: answer in English, like an unknown locale
+                phrase = answering.equals(Locale.ENGLISH) ? GreetingPhraseStorage.getPhrase() : resolve(Locale.ENGLISH);
+            }
+            Map<Locale, String> copy = new HashMap<>(phrases);
+            copy.put(answering, phrase);
+            phrases = Map.copyOf(copy);
+            return phrase;
+        }
+    }
+
+    /**
+     * @return the locale itself, its language or English, whichever a provider declares first;
+     *         English if none does
+     */
+    private Locale answeringLocale(Locale locale) {
+        Map<String, ServiceLoader.Provider<GreetingPhraseProvider>> providers = providers();
+        String tag = locale.toLanguageTag();
+        if (providers.containsKey(tag)) {
+            return Locale.forLanguageTag(tag);
+        }
+        Locale language = Locale.forLanguageTag(locale.getLanguage());
+        return providers.containsKey(language.toLanguageTag()) ? language : Locale.ENGLISH;
+    }
+
+    /**
+     * Looks providers up in this module's own layer. When a newer build of this module is loaded
+     * into a child ModuleLayer, that copy must find its own providers; the ones in the boot layer
+     * implement the boot copy of the interface and are skipped since they cannot read this module.
+     */
+    private ServiceLoader<GreetingPhraseProvider> services() {
+        ModuleLayer layer = GreetingService.class.getModule().getLayer();
+        return layer != null
+                ? ServiceLoader.load(layer, GreetingPhraseProvider.class)
+                : ServiceLoader.load(GreetingPhraseProvider.class);
+    }
+
+    /**
+     * @return the providers by the language tags they declare, scanned on the first call
+     */
+    private Map<String, ServiceLoader.Provider<GreetingPhraseProvider>> providers() {
+        Map<String, ServiceLoader.Provider<GreetingPhraseProvider>> providers = providersByTag;
+        if (providers != null) {
+            return providers;
+        }
+        synchronized (lock) {
+            if (providersByTag == null) {
+                Map<String, ServiceLoader.Provider<GreetingPhraseProvider>> byTag = new HashMap<>();
+                services().stream().forEach(provider -> {
+                    // Provider.type() loads the class without running its initializers
+                    PhraseLocales locales = provider.type().getAnnotation(PhraseLocales.class);
+                    if (locales != null) {
+                        for (String tag : locales.value()) {
+                            byTag.putIfAbsent(Locale.forLanguageTag(tag).toLanguageTag(), provider);
+                        }
+                    }
+                });
+                providersByTag = Map.copyOf(byTag);
+            }
+            return providersByTag;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,16 @@
+package com.example.greeting.provider.internal;
+
+import com.example.greeting.provider.spi.GreetingPhraseProvider;
+import com.example.greeting.provider.spi.PhraseLocales;
+
+import java.util.Locale;
+
+// The original phrase, now served through the service interface.
+// GreetingService falls back to it when no provider knows the locale.
+@PhraseLocales("en")
+public class EnglishPhraseProvider implements GreetingPhraseProvider {
+    @Override
+    public String getPhrase(Locale locale) {
+        return GreetingPhraseStorage.getPhrase();
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.greeting.provider.internal;
+
+import com.example.greeting.provider.spi.GreetingPhraseProvider;
+import com.example.greeting.provider.spi.PhraseLocales;
+
+import java.util.Locale;
+
+@PhraseLocales("fr")
+public class FrenchPhraseProvider implements GreetingPhraseProvider {
+    @Override
+    public String getPhrase(Locale locale) {
+        return "Bonjour depuis le paquet interne du fournisseur !";
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.greeting.provider.internal;
+
+import com.example.greeting.provider.spi.GreetingPhraseProvider;
+import com.example.greeting.provider.spi.PhraseLocales;
+
+import java.util.Locale;
+
+@PhraseLocales({"de", "de-AT", "de-CH"})
+public class GermanPhraseProvider implements GreetingPhraseProvider {
+    @Override
+    public String getPhrase(Locale locale) {
+        return switch (locale.getCountry()) {
+            case "AT" -> "Servus aus dem internen Provider-Paket!";
+            case "CH" -> "Gr\u00fcezi aus dem internen Provider-Paket!";
+            default -> "Hallo aus dem internen Provider-Paket!";
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.greeting.provider.spi;
+
+import java.util.Locale;
+
+/**
+ * Service interface for greeting phrases.
+ * Implementations are declared with 'provides ... with' in their module-info and found by
+ * GreetingService through ServiceLoader. They may be expensive to create (loading bundles,
+ * reading files...), so every implementation must carry a @PhraseLocales annotation:
+ * GreetingService reads it from the provider class and only instantiates a provider
+ * the first time one of its locales is asked for.
+ */
+public interface GreetingPhraseProvider {
+
+    /**
+     * @return the phrase for the locale, or null if this provider has none for it
+     */
+    String getPhrase(Locale locale);
+}
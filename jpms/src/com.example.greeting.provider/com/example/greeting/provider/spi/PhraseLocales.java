@@ -0,0 +1,18 @@
+package com.example.greeting.provider.spi;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Locales a GreetingPhraseProvider serves, as BCP 47 language tags ("en", "de-AT").
+ * Read from the class without creating it, so a provider is only instantiated when needed.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface PhraseLocales {
+    String[] value();
+}
@@ -3,4 +3,17 @@ module com.example.greeting.provider {
     // Export the package containing our public API class.
     // Without this line, GreetingService would be hidden from other modules.
     exports com.example.greeting.provider;
-}
\ No newline at end of file
+
+    // The service interface, so other modules can add phrases for more locales.
+    exports com.example.greeting.provider.spi;
+
+    // GreetingService looks providers up with ServiceLoader...
+    uses com.example.greeting.provider.spi.GreetingPhraseProvider;
+
+    // ...and this module brings its own. The classes stay in the non-exported internal package:
+    // ServiceLoader can still create them, but nobody else can.
+    provides com.example.greeting.provider.spi.GreetingPhraseProvider with
+            com.example.greeting.provider.internal.EnglishPhraseProvider,
+            com.example.greeting.provider.internal.GermanPhraseProvider,
+            com.example.greeting.provider.internal.FrenchPhraseProvider;
+}
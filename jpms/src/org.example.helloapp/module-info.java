@@ -3,4 +3,7 @@ module org.example.helloapp {
     // Declare that this module depends on com.example.greeting.provider.
     // This makes the exported packages from that module visible here.
     requires com.example.greeting.provider;
-}
\ No newline at end of file
+
+    // com.sun.net.httpserver, for serving greetings over HTTP (Main --serve).
+    requires jdk.httpserver;
+}
@@ -0,0 +1,197 @@
+package org.example.helloapp;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load generator for GreetingServer, running in one JVM on a virtual thread per connection.
+ * Each connection sends keep-alive GET requests one after another, optionally pausing between
+ * them, and the latency of every request made during the measured window goes into a histogram.
+ * Without --port it starts a GreetingServer in the same process, so the platform-thread and
+ * virtual-thread configurations can be compared on the same machine with one command each:
+ *
+ *   java --module-path jpms/out -m org.example.helloapp/org.example.helloapp.GreetingLoadGenerator \
+ *        --connections 10000 --seconds 10 --server virtual --cache
+ *   ... --server platform --pool 200
+ *
+ * Options: --connections N (1000), --seconds S (10), --warmup S (3), --pause MS between requests (0),
+ * --lang TAG (en), --port P of a running server; for an in-process server --server virtual|platform,
+ * --pool N platform threads (200), --cache, --backlog N (connections).
+ *
+ * One source address has only about 28,000 ephemeral ports per destination, so connections are
+ * spread over 127.0.0.1, 127.0.0.2 and so on, 20,000 each. Every connection is a file descriptor on
+ * both ends: for 100,000 connections raise the limit first, e.g. ulimit -n 250000.
+ */
+public class GreetingLoadGenerator {
+
+    private static final int CONNECTIONS_PER_SOURCE = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        int connections = 1000;
+        double seconds = 10;
+        double warmup = 3;
+        long pause = 0;
+        String lang = "en";
+        int port = 0;
+        String serverKind = "virtual";
+        int pool = 200;
+        boolean cache = false;
+        int backlog = -1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--connections" -> connections = Integer.parseInt(args[++i]);
+                case "--seconds" -> seconds = Double.parseDouble(args[++i]);
+                case "--warmup" -> warmup = Double.parseDouble(args[++i]);
+                case "--pause" -> pause = Long.parseLong(args[++i]);
+                case "--lang" -> lang = args[++i];
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                case "--server" -> serverKind = args[++i];
+                case "--pool" -> pool = Integer.parseInt(args[++i]);
+                case "--cache" -> cache = true;
+                case "--backlog" -> backlog = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (!serverKind.equals("virtual") && !serverKind.equals("platform")) {
+            throw new IllegalArgumentException("--server must be virtual or platform");
+        }
+
+        GreetingServer server = null;
+        if (port == 0) {
+            server = new GreetingServer(0, serverKind.equals("platform") ? pool : 0, cache,
+                    backlog > 0 ? backlog : connections);
+            port = server.port();
+            System.out.printf("In-process server: %s threads%s, cache %s%n",
+                    serverKind, serverKind.equals("platform") ? " (" + pool + ")" : "", cache ? "on" : "off");
+        }
+        try {
+            Result result = run(port, lang, connections, warmup, seconds, pause);
+            result.print();
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    record Result(int connections, int connected, long errors, double seconds, LatencyHistogram latencies) {
+        void print() {
+            System.out.printf("Connections: %d of %d established, %d errors%n", connected, connections, errors);
+            System.out.printf("Requests: %d in %.1f s, %.0f req/s%n",
+                    latencies.count(), seconds, latencies.count() / seconds);
+            System.out.printf("Latency: p50 %.3f ms, p99 %.3f ms, p999 %.3f ms, max %.3f ms%n",
+                    latencies.percentile(0.50) / 1000.0, latencies.percentile(0.99) / 1000.0,
+                    latencies.percentile(0.999) / 1000.0, latencies.max() / 1000.0);
+        }
+    }
+
+    /**
+     * Opens the connections, lets them run for warmup seconds, then measures for seconds.
+     */
+    static Result run(int port, String lang, int connections, double warmup, double seconds, long pause)
+            throws InterruptedException {
+        byte[] request = ("GET /greeting?lang=" + lang + " HTTP/1.1\r\nHost: localhost:" + port + "\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII);
+        LatencyHistogram latencies = new LatencyHistogram();
+        AtomicLong errors = new AtomicLong();
+        AtomicLong connected = new AtomicLong();
+        long start = System.nanoTime();
+        long measureFrom = start + (long) (warmup * 1e9);
+        long measureTo = measureFrom + (long) (seconds * 1e9);
+        CountDownLatch done = new CountDownLatch(connections);
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < connections; c++) {
+                InetAddress source = sourceAddress(c);
+                clients.execute(() -> {
+                    try (Socket socket = new Socket()) {
+                        socket.bind(new InetSocketAddress(source, 0));
+                        socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 30_000);
+                        socket.setTcpNoDelay(true);
+                        connected.incrementAndGet();
+                        OutputStream out = socket.getOutputStream();
+                        InputStream in = new BufferedInputStream(socket.getInputStream());
+                        long now;
+                        while ((now = System.nanoTime()) < measureTo) {
+                            out.write(request);
+                            out.flush();
+                            readResponse(in);
+                            long end = System.nanoTime();
+                            if (now >= measureFrom) {
+                                latencies.record(end - now);
+                            }
+                            if (pause > 0) {
+                                Thread.sleep(pause);
+                            }
+                        }
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+        }
+        return new Result(connections, (int) connected.get(), errors.get(), seconds, latencies);
+    }
+
+    /**
+     * @return 127.0.0.1 for the first 20,000 connections, 127.0.0.2 for the next, and so on
+     */
+    private static InetAddress sourceAddress(int connection) {
+        int n = 1 + connection / CONNECTIONS_PER_SOURCE;
+        try {
+            return InetAddress.getByAddress(new byte[] {127, 0, (byte) (n >> 8), (byte) n});
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads one response with a Content-Length body.
+     * @throws IOException if the connection closes or the status is not 200
+     */
+    private static void readResponse(InputStream in) throws IOException {
+        List<String> headers = new ArrayList<>();
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Connection closed");
+            }
+            if (b == '\n') {
+                if (line.isEmpty()) {
+                    break;
+                }
+                headers.add(line.toString());
+                line.setLength(0);
+            } else if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        if (headers.isEmpty() || !headers.get(0).startsWith("HTTP/1.1 200")) {
+            throw new IOException("Unexpected response " + (headers.isEmpty() ? "" : headers.get(0)));
+        }
+        long length = 0;
+        for (String header : headers) {
+            if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                length = Long.parseLong(header.substring(15).trim());
+            }
+        }
+        in.skipNBytes(length);
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.helloapp;
+
+import com.example.greeting.provider.GreetingService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures how getMessage scales with the number of reading threads once the phrases are resolved.
+ * For comparison the same calls are also made through one shared lock, which is what a
+ * synchronized cache would cost. Threads default to 1, 2, 4 ... up to the number of processors.
+ *
+ * To run:  java --module-path jpms/out -m org.example.helloapp/org.example.helloapp.GreetingReadBenchmark [seconds]
+ */
+public class GreetingReadBenchmark {
+
+    private static final Locale[] LOCALES = {
+        Locale.ENGLISH, Locale.GERMAN, Locale.forLanguageTag("de-AT"), Locale.FRENCH, Locale.JAPANESE
+    };
+
+    // Results are written here so the JIT cannot drop the calls
+    private static volatile int sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        long millis = (long) (1000 * (args.length > 0 ? Double.parseDouble(args[0]) : 1));
+        GreetingService service = new GreetingService();
+        for (Locale locale : LOCALES) {
+            service.getMessage(locale);
+        }
+        Object lock = new Object();
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%-8s %18s %18s%n", "threads", "snapshot ops/s", "locked ops/s");
+        for (int threads = 1; ; threads = Math.min(2 * threads, processors)) {
+            // First round warms up
+            run(threads, millis, service, null);
+            double snapshot = run(threads, millis, service, null);
+            run(threads, millis, service, lock);
+            double locked = run(threads, millis, service, lock);
+            System.out.printf("%-8d %18.0f %18.0f%n", threads, snapshot, locked);
+            if (threads == processors) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @param lock taken around every call if not null
+     * @return calls per second over all threads
+     */
+    private static double run(int threads, long millis, GreetingService service, Object lock)
+            throws InterruptedException {
+        LongAdder calls = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long deadline = System.nanoTime() + millis * 1_000_000;
+                long count = 0;
+                int hash = 0;
+                do {
+                    for (int i = 0; i < 1024; i++) {
+                        Locale locale = LOCALES[(offset + i) % LOCALES.length];
+                        if (lock == null) {
+                            hash += service.getMessage(locale).length();
+                        } else {
+                            synchronized (lock) {
+                                hash += service.getMessage(locale).length();
+                            }
+                        }
+                    }
+                    count += 1024;
+                } while (System.nanoTime() < deadline);
+                calls.add(count);
+                sink = hash;
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return calls.sum() * 1e9 / (System.nanoTime() - begin);
+    }
+}
@@ -0,0 +1,140 @@
+package org.example.helloapp;
+
+import com.example.greeting.provider.GreetingService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves GreetingService.getMessage() on localhost:  GET /greeting?lang=de  returns the phrase as UTF-8 text.
+ *
+ * The JDK's HttpServer accepts and parses connections on its own dispatcher thread and hands each
+ * request to an executor: either a new virtual thread per request or a fixed pool of platform threads,
+ * so both can be compared under the same load.
+ *
+ * With caching on, the UTF-8 bytes of each phrase are encoded once and kept in an immutable map
+ * that is replaced by a copy when a phrase is added, like the phrases in GreetingService. The map is
+ * keyed by the phrase, not by the lang parameter, so clients cannot grow it with made-up locales.
+ */
+public final class GreetingServer implements AutoCloseable {
+
+    private static final String PATH = "/greeting";
+    // Phrases come from providers, so this is only a safety bound
+    private static final int MAX_CACHED = 256;
+
+    static {
+        // HttpServer closes keep-alive connections beyond 200 idle ones by default, which would turn
+        // every client past the 200th into a reconnect. Read once, before the first server is created.
+        if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+            System.setProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(Integer.MAX_VALUE));
+        }
+    }
+
+    private final GreetingService service = new GreetingService();
+    private final boolean cache;
+    private final ExecutorService executor;
+    private final HttpServer server;
+    private final Object cacheLock = new Object();
+    private volatile Map<String, byte[]> responses = Map.of();
+
+    /**
+     * @param port 0 for any free port
+     * @param platformThreads size of the platform thread pool, or 0 for a virtual thread per request
+     * @param cache whether to keep the encoded responses
+     * @param backlog queued connections the listening socket accepts before refusing new ones
+     */
+    public GreetingServer(int port, int platformThreads, boolean cache, int backlog) throws IOException {
+        this.cache = cache;
+        this.executor = platformThreads > 0
+                ? Executors.newFixedThreadPool(platformThreads)
+                : Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), backlog);
+        server.createContext(PATH, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting connections, waits up to a second for running exchanges and stops the executor.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            Locale locale = locale(exchange.getRequestURI().getRawQuery());
+            String phrase = service.getMessage(locale);
+            byte[] body = cache ? cachedResponse(phrase) : encode(phrase);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private byte[] cachedResponse(String phrase) {
+        Map<String, byte[]> cached = responses;
+        byte[] body = cached.get(phrase);
+        if (body != null) {
+            return body;
+        }
+        if (cached.size() >= MAX_CACHED) {
+            // Full: encode without taking the lock
+            return encode(phrase);
+        }
+        synchronized (cacheLock) {
+            body = responses.get(phrase);
+            if (body == null) {
+                body = encode(phrase);
+                if (responses.size() >= MAX_CACHED) {
+                    return body;
+                }
+                Map<String, byte[]> copy = new HashMap<>(responses);
+                copy.put(phrase, body);
+                responses = Map.copyOf(copy);
+            }
+            return body;
+        }
+    }
+
+    private static byte[] encode(String phrase) {
+        return phrase.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the locale of the lang parameter, or English without one, as GreetingService.getMessage()
+     */
+    static Locale locale(String query) {
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith("lang=")) {
+                    return Locale.forLanguageTag(parameter.substring("lang=".length()));
+                }
+            }
+        }
+        return Locale.ENGLISH;
+    }
+}
@@ -0,0 +1,203 @@
+package org.example.helloapp;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Checks HotSwapGreetingService: readers keep getting phrases while builds are swapped under them,
+ * no call waits on a swap, and every replaced layer becomes unreachable and is collected.
+ *
+ * Each swap is held open after the new build has warmed up: the check waits until readers have
+ * completed calls while the swap is pending, and only then lets it finish. A reader blocked by the
+ * swap would make no progress, so this does not depend on how long any call takes.
+ *
+ * The "builds" are modular JARs packed from the provider module this JVM was started with.
+ * Exits with an AssertionError if a check fails.
+ *
+ * To run:  java --module-path jpms/out -m org.example.helloapp/org.example.helloapp.HotSwapCheck
+ */
+public class HotSwapCheck {
+
+    private static final int READERS = 4;
+    private static final int SWAPS = 20;
+    // Calls readers must complete while a swap is held open
+    private static final long CALLS_DURING_SWAP = 1000;
+    // Only reached if readers are stuck, so a broken service fails instead of hanging
+    private static final long STUCK_NANOS = 10_000_000_000L;
+
+    public static void main(String[] args) throws Exception {
+        Path builds = Files.createTempDirectory("greeting-builds");
+        try (HotSwapGreetingService service = new HotSwapGreetingService()) {
+            String expected = service.getMessage(Locale.GERMAN);
+            List<Path> directories = List.of(build(builds.resolve("1")), build(builds.resolve("2")));
+
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicLong calls = new AtomicLong();
+            AtomicLong slowest = new AtomicLong();
+            List<Throwable> failures = new ArrayList<>();
+            List<Thread> readers = new ArrayList<>();
+            for (int r = 0; r < READERS; r++) {
+                Thread reader = new Thread(() -> {
+                    try {
+                        while (running.get()) {
+                            long start = System.nanoTime();
+                            String phrase = service.getMessage(Locale.GERMAN);
+                            long elapsed = System.nanoTime() - start;
+                            slowest.accumulateAndGet(elapsed, Math::max);
+                            check(expected.equals(phrase), "unexpected phrase " + phrase);
+                            calls.incrementAndGet();
+                        }
+                    } catch (Throwable e) {
+                        synchronized (failures) {
+                            failures.add(e);
+                        }
+                    }
+                });
+                reader.start();
+                readers.add(reader);
+            }
+
+            List<WeakReference<ModuleLayer>> replaced = new ArrayList<>();
+            try {
+                for (int s = 0; s < SWAPS; s++) {
+                    ModuleLayer previous = service.currentLayer();
+                    if (previous != null) {
+                        replaced.add(new WeakReference<>(previous));
+                    }
+                    previous = null;
+                    swap(service, directories.get(s % directories.size()), calls, failures);
+                    check(service.currentLayer().findModule(HotSwapGreetingService.PROVIDER_MODULE).isPresent(),
+                            "new layer lacks the provider module");
+                    // Readers must make progress on every generation
+                    awaitCalls(calls, calls.get() + CALLS_DURING_SWAP, failures, "after swap " + (s + 1));
+                }
+            } finally {
+                running.set(false);
+                for (Thread reader : readers) {
+                    reader.join();
+                }
+            }
+            if (!failures.isEmpty()) {
+                throw new AssertionError("Reader failed", failures.get(0));
+            }
+            check(service.releasedGenerations() == SWAPS, "released " + service.releasedGenerations()
+                    + " of " + SWAPS + " retired generations");
+
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (replaced.stream().anyMatch(layer -> layer.get() != null) && System.nanoTime() < deadline) {
+                System.gc();
+                Thread.sleep(50);
+            }
+            long alive = replaced.stream().filter(layer -> layer.get() != null).count();
+            check(alive == 0, alive + " of " + replaced.size() + " replaced layers were not collected");
+
+            System.out.printf("OK: %d calls on %d readers across %d swaps, slowest call %.2f ms, "
+                            + "%d replaced layers collected%n",
+                    calls.get(), READERS, SWAPS, slowest.get() / 1e6, replaced.size());
+        } finally {
+            try (Stream<Path> files = Files.walk(builds)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * Loads directory on another thread, holding the swap open after warm-up until readers have
+     * completed CALLS_DURING_SWAP calls, then lets it finish.
+     */
+    private static void swap(HotSwapGreetingService service, Path directory, AtomicLong calls,
+                             List<Throwable> failures) throws Exception {
+        CountDownLatch warmedUp = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        long generation = service.generation();
+        Thread loader = new Thread(() -> {
+            try {
+                service.load(directory, () -> {
+                    warmedUp.countDown();
+                    try {
+                        proceed.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+            } catch (Throwable e) {
+                synchronized (failures) {
+                    failures.add(e);
+                }
+                warmedUp.countDown();
+            }
+        });
+        loader.start();
+        try {
+            check(warmedUp.await(STUCK_NANOS, TimeUnit.NANOSECONDS), "the new build did not warm up");
+            awaitCalls(calls, calls.get() + CALLS_DURING_SWAP, failures, "while a swap was pending");
+            check(service.generation() == generation, "callers were switched before the swap finished");
+        } finally {
+            proceed.countDown();
+            loader.join();
+        }
+        check(service.generation() == generation + 1, "load failed: " + failedWith(failures));
+    }
+
+    private static void awaitCalls(AtomicLong calls, long target, List<Throwable> failures, String when) {
+        long deadline = System.nanoTime() + STUCK_NANOS;
+        while (calls.get() < target) {
+            synchronized (failures) {
+                if (!failures.isEmpty()) {
+                    throw new AssertionError("Failed " + when, failures.get(0));
+                }
+            }
+            check(System.nanoTime() < deadline, "readers made no progress " + when);
+            Thread.onSpinWait();
+        }
+    }
+
+    private static String failedWith(List<Throwable> failures) {
+        synchronized (failures) {
+            return failures.isEmpty() ? "no error" : String.valueOf(failures.get(0));
+        }
+    }
+
+    /**
+     * Packs the running provider module into a modular JAR in a new directory.
+     */
+    private static Path build(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        URI location = ModuleLayer.boot().configuration().findModule(HotSwapGreetingService.PROVIDER_MODULE)
+                .orElseThrow().reference().location().orElseThrow();
+        Path module = Path.of(location);
+        Path jar = directory.resolve(HotSwapGreetingService.PROVIDER_MODULE + ".jar");
+        if (Files.isRegularFile(module)) {
+            return Files.copy(module, jar).getParent();
+        }
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar));
+             Stream<Path> files = Files.walk(module)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                out.putNextEntry(new JarEntry(module.relativize(file).toString().replace('\\', '/')));
+                Files.copy(file, out);
+                out.closeEntry();
+            }
+        }
+        return directory;
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new AssertionError("HotSwapGreetingService: " + what);
+        }
+    }
+}
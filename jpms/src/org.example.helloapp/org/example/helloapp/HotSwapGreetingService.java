@@ -0,0 +1,265 @@
+package org.example.helloapp;
+
+import com.example.greeting.provider.GreetingService;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.module.Configuration;
+import java.lang.module.ModuleFinder;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Serves getMessage from the newest build of com.example.greeting.provider without restarting the JVM.
+ *
+ * Until a build is loaded, calls go to the copy of the module in the boot layer. load(directory)
+ * resolves the module from a directory of modular JARs into a new child ModuleLayer, creates that
+ * copy's GreetingService and switches callers to it with one volatile write. Its classes are
+ * different from the boot ones, so it is called through a method handle.
+ *
+ * Before the switch the new service resolves the locales asked for so far, so the first calls on
+ * a new build do not wait while it looks up its providers. Locales come from callers, so only the
+ * first MAX_WARMED_LOCALES distinct ones are remembered; later ones are resolved on first use.
+ *
+ * Every generation counts the calls running in it. A call enters the current generation with a
+ * compare-and-set, and if that generation was retired in the meantime it simply enters the new
+ * one instead, so callers never wait for a swap. A retired generation drops its layer and service
+ * when its last call leaves; after that nothing refers to the layer and its classes can be unloaded.
+ *
+ * watch(root) loads every directory created in root. Publish a build by assembling it next to root
+ * and moving the complete directory in, so it never appears half-written:  mv staging/42 builds/42
+ */
+public final class HotSwapGreetingService implements AutoCloseable {
+
+    static final String PROVIDER_MODULE = "com.example.greeting.provider";
+    private static final String SERVICE_CLASS = "com.example.greeting.provider.GreetingService";
+    static final int MAX_WARMED_LOCALES = 256;
+
+    private final Object swapLock = new Object();
+    private final AtomicLong released = new AtomicLong();
+    private volatile Generation current = new Generation(0, null, new GreetingService()::getMessage);
+    private volatile WatchService watcher;
+    // Immutable, replaced under its own lock, so a new locale never waits for a swap
+    private final Object localesLock = new Object();
+    private volatile Set<Locale> locales = Set.of();
+
+    /**
+     * @return the English phrase from the current build, like GreetingService.getMessage()
+     */
+    public String getMessage() {
+        return getMessage(Locale.ENGLISH);
+    }
+
+    /**
+     * @return the phrase for the locale from the current build
+     */
+    public String getMessage(Locale locale) {
+        Set<Locale> warmed = locales;
+        if (warmed.size() < MAX_WARMED_LOCALES && !warmed.contains(locale)) {
+            remember(locale);
+        }
+        while (true) {
+            Generation generation = current;
+            if (generation.enter()) {
+                try {
+                    return generation.messages.apply(locale);
+                } finally {
+                    generation.exit();
+                }
+            }
+            // Retired between the read and the enter: current already holds its successor
+        }
+    }
+
+    private void remember(Locale locale) {
+        synchronized (localesLock) {
+            if (locales.size() >= MAX_WARMED_LOCALES) {
+                return;
+            }
+            Set<Locale> copy = new HashSet<>(locales);
+            copy.add(locale);
+            locales = Set.copyOf(copy);
+        }
+    }
+
+    /**
+     * Loads the provider module from the modular JARs in directory into a new layer and switches to it.
+     * The previous generation is released once its running calls have finished.
+     * @return the new layer
+     * @throws IOException if the module is missing or cannot be resolved or instantiated;
+     *         callers stay on the current build
+     */
+    public ModuleLayer load(Path directory) throws IOException {
+        return load(directory, () -> { });
+    }
+
+    /**
+     * Like load(directory), running warmedUp once the new build has resolved its locales and
+     * before callers are switched to it. HotSwapCheck blocks there to hold a swap open.
+     */
+    ModuleLayer load(Path directory, Runnable warmedUp) throws IOException {
+        synchronized (swapLock) {
+            ModuleLayer layer;
+            Function<Locale, String> messages;
+            try {
+                ModuleLayer parent = ModuleLayer.boot();
+                // The directory is searched before the parent, so its copy of the module wins
+                Configuration configuration = parent.configuration()
+                        .resolve(ModuleFinder.of(directory), ModuleFinder.of(), Set.of(PROVIDER_MODULE));
+                layer = parent.defineModulesWithOneLoader(configuration, ClassLoader.getSystemClassLoader());
+                Class<?> type = layer.findLoader(PROVIDER_MODULE).loadClass(SERVICE_CLASS);
+                Object service = type.getConstructor().newInstance();
+                MethodHandle getMessage = MethodHandles.publicLookup()
+                        .findVirtual(type, "getMessage", MethodType.methodType(String.class, Locale.class))
+                        .bindTo(service);
+                messages = locale -> {
+                    try {
+                        return (String) getMessage.invokeExact(locale);
+                    } catch (RuntimeException | Error e) {
+                        throw e;
+                    } catch (Throwable e) {
+                        throw new IllegalStateException(e);
+                    }
+                };
+                for (Locale locale : locales) {
+                    messages.apply(locale);
+                }
+                warmedUp.run();
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                throw new IOException("Cannot load " + PROVIDER_MODULE + " from " + directory, e);
+            }
+            Generation previous = current;
+            current = new Generation(previous.number + 1, layer, messages);
+            previous.retire();
+            return layer;
+        }
+    }
+
+    /**
+     * Loads each directory that appears in root from now on, on a daemon thread.
+     * Directories that fail to load are reported on System.err and skipped.
+     */
+    public void watch(Path root) throws IOException {
+        WatchService service = root.getFileSystem().newWatchService();
+        root.register(service, StandardWatchEventKinds.ENTRY_CREATE);
+        watcher = service;
+        Thread thread = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = service.take();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.context() instanceof Path name && Files.isDirectory(root.resolve(name))) {
+                            try {
+                                load(root.resolve(name));
+                            } catch (IOException e) {
+                                System.err.println(e.getMessage() + ": " + e.getCause());
+                            }
+                        }
+                    }
+                    key.reset();
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // Closed, stop watching
+            }
+        }, "greeting-provider-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return the layer callers are currently switched to, or null while they use the boot layer
+     */
+    public ModuleLayer currentLayer() {
+        return current.layer;
+    }
+
+    /**
+     * @return how many builds have been loaded
+     */
+    public long generation() {
+        return current.number;
+    }
+
+    /**
+     * @return how many retired generations have drained and dropped their layer
+     */
+    public long releasedGenerations() {
+        return released.get();
+    }
+
+    /**
+     * Stops watching; the current build keeps serving.
+     */
+    @Override
+    public void close() throws IOException {
+        WatchService service = watcher;
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    /**
+     * One loaded build and the number of calls running in it.
+     */
+    private final class Generation {
+        // Set in state once retired; the low bits count the calls still running
+        private static final int RETIRED = Integer.MIN_VALUE;
+
+        final long number;
+        final AtomicInteger state = new AtomicInteger();
+        volatile ModuleLayer layer;
+        volatile Function<Locale, String> messages;
+
+        Generation(long number, ModuleLayer layer, Function<Locale, String> messages) {
+            this.number = number;
+            this.layer = layer;
+            this.messages = messages;
+        }
+
+        /**
+         * @return false if the generation is retired and must not be used any more
+         */
+        boolean enter() {
+            while (true) {
+                int s = state.get();
+                if (s < 0) {
+                    return false;
+                }
+                if (state.compareAndSet(s, s + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void exit() {
+            if (state.decrementAndGet() == RETIRED) {
+                release();
+            }
+        }
+
+        void retire() {
+            if (state.getAndUpdate(s -> s | RETIRED) == 0) {
+                release();
+            }
+        }
+
+        private void release() {
+            layer = null;
+            messages = null;
+            released.incrementAndGet();
+        }
+    }
+}
@@ -3,8 +3,22 @@ package org.example.helloapp;
 // We can import this because our module will 'require' the provider module.
 import com.example.greeting.provider.GreetingService;
 
+import java.nio.file.Path;
+import java.util.Locale;
+
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        // --watch <dir>: keep greeting, switching to every provider build that appears in dir
+        if (args.length == 2 && args[0].equals("--watch")) {
+            watch(Path.of(args[1]));
+            return;
+        }
+        // --serve [port] [--platform N] [--cache]: serve GET /greeting?lang=.. on localhost
+        if (args.length > 0 && args[0].equals("--serve")) {
+            serve(args);
+            return;
+        }
+
         // Create an instance of the service from the other module
         GreetingService service = new GreetingService();
         String message = service.getMessage();
@@ -15,5 +29,39 @@ public class Main {
         //System.out.println(GreetingPhraseStorage.getPhrase());
         // This will lead to compilation error 
         // error: package com.example.greeting.provider.internal is not visible
+
+        // Phrases for other locales come from service providers, created on first use.
+        // Japanese has no provider and falls back to English.
+        for (String tag : new String[] {"de", "de-AT", "fr-CA", "ja"}) {
+            System.out.println(tag + ": " + service.getMessage(Locale.forLanguageTag(tag)));
+        }
+    }
+
+    private static void watch(Path builds) throws Exception {
+        try (HotSwapGreetingService service = new HotSwapGreetingService()) {
+            service.watch(builds);
+            while (true) {
+                System.out.println("[build " + service.generation() + "] " + service.getMessage());
+                Thread.sleep(1000);
+            }
+        }
+    }
+
+    private static void serve(String[] args) throws Exception {
+        int port = 8080;
+        int platformThreads = 0;
+        boolean cache = false;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--platform" -> platformThreads = Integer.parseInt(args[++i]);
+                case "--cache" -> cache = true;
+                default -> port = Integer.parseInt(args[i]);
+            }
+        }
+        GreetingServer server = new GreetingServer(port, platformThreads, cache, 65_536);
+        System.out.println("Serving http://localhost:" + server.port() + "/greeting?lang=de on "
+                + (platformThreads > 0 ? platformThreads + " platform threads" : "virtual threads")
+                + (cache ? ", caching responses" : ""));
+        Thread.currentThread().join();
     }
 }
\ No newline at end of file